@@ -6,48 +6,83 @@ import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.facetec.sdk.FaceTecSDK;
 import com.reactnativefacetec.Processors.AuthenticateProcessor;
+import com.reactnativefacetec.Processors.ConnectionStats;
+import com.reactnativefacetec.Processors.EndpointRouter;
 import com.reactnativefacetec.Processors.EnrollmentProcessor;
+import com.reactnativefacetec.Processors.FlowMetrics;
+import com.reactnativefacetec.Processors.FlowTimings;
+import com.reactnativefacetec.Processors.ImageFileCache;
+import com.reactnativefacetec.Processors.LatencyHistogram;
+import com.reactnativefacetec.Processors.LatencyRecorder;
 import com.reactnativefacetec.Processors.LivenessCheckProcessor;
+import com.reactnativefacetec.Processors.NetworkClassifier;
 import com.reactnativefacetec.Processors.NetworkingHelpers;
 import com.reactnativefacetec.Processors.PhotoIDMatchProcessor;
 import com.reactnativefacetec.Processors.Processor;
+import com.reactnativefacetec.Processors.SdkInitializer;
+import com.reactnativefacetec.Processors.SessionResult;
+import com.reactnativefacetec.Processors.SessionTokenPool;
 import com.reactnativefacetec.Processors.ThemeHelpers;
-import com.reactnativefacetec.Processors.Config;
-
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.reactnativefacetec.Processors.ThemeRegistry;
+import com.reactnativefacetec.Processors.ThroughputEstimator;
+import com.reactnativefacetec.Processors.UploadQueue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import okhttp3.Call;
-
-public class FacetecModule extends ReactContextBaseJavaModule {
+public class FacetecModule extends ReactContextBaseJavaModule implements LifecycleEventListener {
 
   public static final String REACT_CLASS = "Facetec";
 
   private static ReactApplicationContext reactContext = null;
+  // Most recently launched processor. Flows in progress are tracked per session in the registry.
   public Processor latestProcessor;
-  String sessionToken;
-
-  Callback onSuccess;
-  Callback onFail;
+  final SessionRegistry sessions = new SessionRegistry();
+  final SessionTokenPool sessionTokenPool = new SessionTokenPool();
+  // Tokens are prefetched as soon as the SDK is up.
+  private final SdkInitializer.Listener onSdkInitialized = new SdkInitializer.Listener() {
+    @Override
+    public void onInitialized(boolean successful) {
+      if(successful) {
+        sessionTokenPool.prefetch();
+      }
+    }
+  };
+  // Success results as native maps instead of the legacy JSON strings.
+  volatile boolean mapResults = false;
 
   public FacetecModule(ReactApplicationContext context) {
     // Pass in the context to the constructor and save it so you can emit events
     // https://facebook.github.io/react-native/docs/native-modules-android.html#the-toast-module
     super(context);
     reactContext = context;
-    ThemeHelpers themeHelpers = new ThemeHelpers(context);
-    themeHelpers.setAppTheme("Sample Bank");
+    reactContext.addLifecycleEventListener(this);
+    UploadQueue.init(context).setListener(new UploadQueue.Listener() {
+      @Override
+      public void onQueueChanged(UploadQueue.Status status) {
+        emitDeviceEvent("FacetecUploadQueueStatus", toWritableMap(status));
+      }
+    });
+    ImageFileCache.init(context);
+    NetworkClassifier.init(context);
+    // Compiled in the background and handed to the SDK when the first session launches.
+    ThemeRegistry.define(ThemeRegistry.DEFAULT_THEME, ThemeHelpers.Palette.SAMPLE_BANK);
+    SdkInitializer.initialize(context, onSdkInitialized);
   }
 
   @Override
@@ -67,198 +102,559 @@ public class FacetecModule extends ReactContextBaseJavaModule {
     return constants;
   }
 
+  @Override
+  public void onHostResume() {
+    // Tokens may have expired while the app was in the background. An init that failed is retried.
+    if(SdkInitializer.isReady()) {
+      sessionTokenPool.prefetch();
+    }
+    else if(SdkInitializer.getState() != SdkInitializer.State.INITIALIZING) {
+      SdkInitializer.initialize(reactContext, onSdkInitialized);
+    }
+  }
+
+  @Override
+  public void onHostPause() {
+  }
+
+  @Override
+  public void onHostDestroy() {
+    sessionTokenPool.clear();
+  }
+
   private static void emitDeviceEvent(String eventName, @Nullable WritableMap eventData) {
     // A method for emitting from the native side to JS
     // https://facebook.github.io/react-native/docs/native-modules-android.html#sending-events-to-javascript
     reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, eventData);
   }
 
+  /*
+   * Reports the SDK init, which the module already started when it was created. Concurrent calls share one
+   * init, and once it has succeeded the answer comes back without another one.
+   */
   @ReactMethod
-  public void Init(Callback onSuccess, Callback onFail) {
-    this.onSuccess = onSuccess;
-    this.onFail = onFail;
-
-    FaceTecSDK.initializeInProductionMode(
-      reactContext,
-      Config.ProductionKeyText,
-      Config.DeviceKeyIdentifier,
-      Config.PublicFaceScanEncryptionKey, new FaceTecSDK.InitializeCallback() {
-        @Override
-        public void onCompletion(boolean b) {
-          WritableMap params = Arguments.createMap();
-          try{
-            params.putString("initState", b+"");
-          }catch (Exception e){
-            e.printStackTrace();
-          }
-          if(b){
-            params.putBoolean("successful", true);
-            onSuccess.invoke(params);
-          }
-          else{
-            onFail.invoke(params);
-            params.putBoolean("successful", false);
-          }
+  public void Init(final Callback onSuccess, final Callback onFail) {
+    SdkInitializer.initialize(reactContext, new SdkInitializer.Listener() {
+      @Override
+      public void onInitialized(boolean successful) {
+        WritableMap params = Arguments.createMap();
+        params.putString("initState", successful+"");
+        params.putBoolean("successful", successful);
+        if(successful){
+          sessionTokenPool.prefetch();
+          onSuccess.invoke(params);
+        }
+        else{
+          onFail.invoke(params);
         }
       }
-    );
+    });
+  }
+
+  // 'not_started', 'initializing', 'ready' or 'failed', without a round trip through a callback.
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public String GetInitState() {
+    return SdkInitializer.getState().name().toLowerCase(Locale.ROOT);
   }
 
   @ReactMethod
   public void Enroll(String id, Callback onSuccess, Callback onFail) {
-    okhttp3.Request request = new okhttp3.Request.Builder()
-      .header("X-Device-Key", Config.DeviceKeyIdentifier)
-      .url(Config.BaseURL + "/session-token")
-      .get()
-      .build();
+    final SessionRegistry.Session session = startSession("enroll", id, onSuccess, onFail);
+    if(session == null) {
+      return;
+    }
 
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new okhttp3.Callback() {
+    launchSession(session, new SessionLauncher() {
       @Override
-      public void onFailure(Call call, IOException e) {
-        e.printStackTrace();
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        // If this comes from HTTPS cancel call, don't set the sub code to NETWORK_ERROR.
-        if(!e.getMessage().equals(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED)) {
-          onFail.invoke("Exception raised while attempting HTTPS call");
-        }
+      public Processor launch(String token, String baseURL) {
+        return new EnrollmentProcessor(id, token, getCurrentActivity(), newErrorCallback(session), newSuccessCallback(session), session.timings, baseURL);
       }
+    });
+  }
 
+  @ReactMethod
+  public void AuthenticateUser(String id, Callback onSuccess, Callback onFail) {
+    final SessionRegistry.Session session = startSession("authenticate", id, onSuccess, onFail);
+    if(session == null) {
+      return;
+    }
+
+    launchSession(session, new SessionLauncher() {
       @Override
-      public void onResponse(Call call, okhttp3.Response response) throws IOException {
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-          if(responseJSON.has("sessionToken")) {
-            sessionToken = responseJSON.getString("sessionToken");
-            latestProcessor = new EnrollmentProcessor(id, responseJSON.getString("sessionToken"), getCurrentActivity(), sessionTokenErrorCallback, sessionTokenSuccessCallback);
-          }
-          else {
-            onFail.invoke("sessionToken invalid");
-          }
-        }
-        catch(JSONException e) {
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          onFail.invoke("Exception raised while attempting to parse JSON result.");
-        }
+      public Processor launch(String token, String baseURL) {
+        return new AuthenticateProcessor(token, id, getCurrentActivity(), newErrorCallback(session), newSuccessCallback(session), session.timings, baseURL);
       }
     });
-    this.onSuccess = onSuccess;
-    this.onFail = onFail;
   }
 
   @ReactMethod
-  public void AuthenticateUser(String id, Callback onSuccess, Callback onFail) {
-    this.onSuccess = onSuccess;
-    this.onFail = onFail;
-
-    okhttp3.Request request = new okhttp3.Request.Builder()
-            .header("X-Device-Key", Config.DeviceKeyIdentifier)
-            .url(Config.BaseURL + "/session-token")
-            .get()
-            .build();
+  public void LivenessCheck(Callback onSuccess, Callback onFail) {
+    final SessionRegistry.Session session = startSession("liveness", null, onSuccess, onFail);
+    if(session == null) {
+      return;
+    }
 
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new okhttp3.Callback() {
+    launchSession(session, new SessionLauncher() {
       @Override
-      public void onFailure(Call call, IOException e) {
-        e.printStackTrace();
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        // If this comes from HTTPS cancel call, don't set the sub code to NETWORK_ERROR.
-        if(!e.getMessage().equals(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED)) {
-          onFail.invoke("Exception raised while attempting HTTPS call");
-        }
+      public Processor launch(String token, String baseURL) {
+        return new LivenessCheckProcessor(token, getCurrentActivity(), newErrorCallback(session), newSuccessCallback(session), session.timings, baseURL);
       }
+    });
+  }
+
+  @ReactMethod
+  public void CheckId(String id, Callback onSuccess, Callback onFail) {
+    final SessionRegistry.Session session = startSession("checkId", id, onSuccess, onFail);
+    if(session == null) {
+      return;
+    }
 
+    launchSession(session, new SessionLauncher() {
       @Override
-      public void onResponse(Call call, okhttp3.Response response) throws IOException {
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-          if(responseJSON.has("sessionToken")) {
-            sessionToken = responseJSON.getString("sessionToken");
-            latestProcessor  = new AuthenticateProcessor( sessionToken, id, getCurrentActivity(), sessionTokenErrorCallback, sessionTokenSuccessCallback);
-          }
-          else {
-            onFail.invoke("sessionToken invalid");
-          }
-        }
-        catch(JSONException e) {
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          onFail.invoke("Exception raised while attempting to parse JSON result.");
-        }
+      public Processor launch(String token, String baseURL) {
+        return new PhotoIDMatchProcessor(id, token, getCurrentActivity(), newErrorCallback(session), newSuccessCallback(session), session.timings, baseURL);
       }
     });
   }
 
+  /*
+   * Cancels a flow by the id from its 'FacetecSessionStarted' event: its upload is stopped (or never started, or
+   * its session never launched) and onFail gets 'Canceled'. Unknown or finished sessions are ignored.
+   */
   @ReactMethod
-  public void LivenessCheck(Callback onSuccess, Callback onFail) {
-    this.onSuccess = onSuccess;
-    this.onFail = onFail;
-    latestProcessor = new LivenessCheckProcessor(sessionToken,getCurrentActivity());
+  public void Cancel(String sessionId) {
+    SessionRegistry.Session session = sessions.get(sessionId);
+    if(session == null) {
+      Log.d("FaceTecSDKSampleApp", "No session to cancel: " + sessionId);
+      return;
+    }
+    session.cancel();
+    session.fail(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED, toWritableMap(session.id, session.timings.complete(false)));
   }
 
   @ReactMethod
-  public void CheckId(String id, Callback onSuccess, Callback onFail) {
-    this.onSuccess = onSuccess;
-    this.onFail = onFail;
-    okhttp3.Request request = new okhttp3.Request.Builder()
-            .header("X-Device-Key", Config.DeviceKeyIdentifier)
-            .url(Config.BaseURL + "/session-token")
-            .get()
-            .build();
-
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new okhttp3.Callback() {
-      @Override
-      public void onFailure(Call call, IOException e) {
-        e.printStackTrace();
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        // If this comes from HTTPS cancel call, don't set the sub code to NETWORK_ERROR.
-        if(!e.getMessage().equals(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED)) {
-          onFail.invoke("Exception raised while attempting HTTPS call");
-        }
+  public void ConfigureSessionTokenPool(int size, int ttlSeconds) {
+    sessionTokenPool.configure(size, ttlSeconds * 1000L);
+    if(SdkInitializer.isReady()) {
+      sessionTokenPool.prefetch();
+    }
+  }
+
+  /*
+   * Registers a flow and announces its id with a 'FacetecSessionStarted' event, before anything else can report
+   * on it. The same id comes back with the flow's result. A call for the same flow and id as one that is still
+   * running (a double tap) joins that one instead and gets its result; null is returned and nothing is launched.
+   */
+  private SessionRegistry.Session startSession(String flow, String id, Callback onSuccess, Callback onFail) {
+    String key = flow + ":" + id;
+    SessionRegistry.Session session;
+    synchronized(sessions) {
+      SessionRegistry.Session running = sessions.join(key, onSuccess, onFail);
+      if(running != null) {
+        Log.d("FaceTecSDKSampleApp", "Joined running " + flow + " session " + running.id);
+        return null;
       }
+      session = sessions.start(flow, key, onSuccess, onFail);
+    }
+    WritableMap params = Arguments.createMap();
+    params.putString("sessionId", session.id);
+    params.putString("flow", flow);
+    emitDeviceEvent("FacetecSessionStarted", params);
+    return session;
+  }
+
+  /*
+   * Hedges live /session-token fetches: one still running after the given percentile (0..1) of recent fetch
+   * times gets a second copy, on another endpoint or a fresh connection, and the first answer wins.
+   * budgetRatio caps hedges as a fraction of fetches.
+   */
+  @ReactMethod
+  public void SetSessionTokenHedging(boolean enabled, double percentile, double budgetRatio) {
+    sessionTokenPool.configureHedging(enabled, percentile, budgetRatio);
+  }
 
+  /*
+   * Takes a prefetched session token when one is available, otherwise fetches one live, and launches the session
+   * once the SDK is initialized too. A missing init is started (or joined) alongside the token fetch, so flows
+   * don't need a prior Init call. Failures end the flow and are reported on onFail along with its timings,
+   * except for cancelled calls which stay silent.
+   */
+  private void launchSession(final SessionRegistry.Session session, final SessionLauncher launcher) {
+    if(!SdkInitializer.isReady()) {
+      SdkInitializer.initialize(reactContext, onSdkInitialized);
+    }
+    sessionTokenPool.acquire(new SessionTokenPool.Callback() {
       @Override
-      public void onResponse(Call call, okhttp3.Response response) throws IOException {
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-          if(responseJSON.has("sessionToken")) {
-            sessionToken = responseJSON.getString("sessionToken");
-            latestProcessor = new PhotoIDMatchProcessor(id, sessionToken,  getCurrentActivity(), sessionTokenErrorCallback, sessionTokenSuccessCallback);
+      public void onToken(final String token, final String baseURL) {
+        session.timings.mark(FlowTimings.Stage.TOKEN_ACQUIRED);
+        session.sessionToken = token;
+        session.baseURL = baseURL;
+        SdkInitializer.initialize(reactContext, new SdkInitializer.Listener() {
+          @Override
+          public void onInitialized(boolean successful) {
+            if(!successful) {
+              session.fail("FaceTec SDK failed to initialize", toWritableMap(session.id, session.timings.complete(false)));
+              return;
+            }
+            if(session.isCanceled()) {
+              return;
+            }
+            ThemeRegistry.applySelected();
+            Processor processor = launcher.launch(token, baseURL);
+            session.attach(processor);
+            latestProcessor = processor;
+            session.timings.mark(FlowTimings.Stage.SESSION_LAUNCHED);
           }
-          else {
-            onFail.invoke("sessionToken invalid");
-          }
-        }
-        catch(JSONException e) {
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          onFail.invoke("Exception raised while attempting to parse JSON result.");
+        });
+      }
+
+      @Override
+      public void onError(String msg) {
+        FlowTimings.Record record = session.timings.complete(false);
+        if(!NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED.equals(msg)) {
+          session.fail(msg, toWritableMap(session.id, record));
         }
       }
     });
   }
 
-  Processor.SessionTokenErrorCallback sessionTokenErrorCallback = new Processor.SessionTokenErrorCallback() {
-    @Override
-    public void onError(String msg) {
-      try{
-        onFail.invoke(msg);
-      }catch (Exception e){
-        e.printStackTrace();
+  /*
+   * Candidate backends, most preferred first. Each flow goes to the fastest healthy one and stays there, since
+   * its session token is only valid on the backend that issued it. An empty list goes back to Config.BaseURL.
+   */
+  @ReactMethod
+  public void SetEndpoints(ReadableArray baseURLs) {
+    List<String> list = new ArrayList<>();
+    for(int i = 0; i < baseURLs.size(); i++) {
+      list.add(baseURLs.getString(i));
+    }
+    EndpointRouter.setEndpoints(list);
+  }
+
+  // [{ baseURL, rttMillis (-1 until measured), healthy, selected }]
+  @ReactMethod
+  public void GetEndpoints(Callback callback) {
+    WritableArray params = Arguments.createArray();
+    for(EndpointRouter.Status status : EndpointRouter.snapshot()) {
+      WritableMap entry = Arguments.createMap();
+      entry.putString("baseURL", status.baseURL);
+      entry.putDouble("rttMillis", status.rttMillis);
+      entry.putBoolean("healthy", status.healthy);
+      entry.putBoolean("selected", status.selected);
+      params.pushMap(entry);
+    }
+    callback.invoke(params);
+  }
+
+  @ReactMethod
+  public void SetConnectionPoolConfig(int maxIdleConnections, int keepAliveSeconds) {
+    if(NetworkingHelpers.setConnectionPoolConfig(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS)) {
+      // The new pool starts empty; open the backend connections again.
+      EndpointRouter.probe();
+    }
+  }
+
+  @ReactMethod
+  public void GetConnectionStats(Callback callback) {
+    ConnectionStats stats = ConnectionStats.snapshot();
+    WritableMap params = Arguments.createMap();
+    params.putDouble("calls", stats.calls);
+    params.putDouble("connectionsOpened", stats.opened);
+    params.putDouble("connectionsReused", stats.reused);
+    params.putDouble("averageHandshakeMillis", stats.averageHandshakeMillis);
+    params.putDouble("estimatedSavedMillis", stats.estimatedSavedMillis());
+    callback.invoke(params);
+  }
+
+  /*
+   * Sizes FaceScan uploads to the measured upload throughput: on a slow link the audit trail images are dropped,
+   * the full size one first, until the upload is expected to take at most budgetSeconds. The tier sent is
+   * reported to the backend as "payloadTier".
+   */
+  @ReactMethod
+  public void SetAdaptivePayload(boolean enabled, int budgetSeconds) {
+    NetworkingHelpers.setAdaptivePayload(enabled, budgetSeconds * 1000L);
+  }
+
+  /*
+   * { networkClass, bytesPerSecond, measured }, where measured is false while the estimate is still the prior
+   * for the kind of network.
+   */
+  @ReactMethod
+  public void GetThroughputEstimate(Callback callback) {
+    WritableMap params = Arguments.createMap();
+    params.putString("networkClass", ThroughputEstimator.getNetworkClass().name().toLowerCase(Locale.ROOT));
+    params.putDouble("bytesPerSecond", ThroughputEstimator.bytesPerSecond());
+    params.putBoolean("measured", ThroughputEstimator.isMeasured());
+    callback.invoke(params);
+  }
+
+  @ReactMethod
+  public void SetUploadProgressThrottle(int intervalMillis, double minDelta) {
+    NetworkingHelpers.setUploadProgressThrottle(intervalMillis, (float) minDelta);
+  }
+
+  /*
+   * Aborts an upload that hasn't written a byte for timeoutSeconds, so a dead link fails fast instead of waiting
+   * out socket timeouts. 0 turns the abort off; the upload message and progress heartbeats stay on regardless.
+   */
+  @ReactMethod
+  public void SetUploadStallTimeout(int timeoutSeconds) {
+    NetworkingHelpers.setUploadStallTimeout(timeoutSeconds * 1000L);
+  }
+
+  /*
+   * Sends uploads of at least thresholdKilobytes in resumable chunks of chunkKilobytes, so a dropped connection
+   * only costs the chunk in flight. Smaller uploads stay one-shot. The backend has to serve /uploads.
+   * The chunk size is clamped to 16 KB - 8 MB and a negative threshold counts as 0.
+   */
+  @ReactMethod
+  public void SetResumableUploads(boolean enabled, int thresholdKilobytes, int chunkKilobytes) {
+    NetworkingHelpers.setResumableUploads(enabled, thresholdKilobytes * 1024L, chunkKilobytes * 1024L);
+  }
+
+  @ReactMethod
+  public void SetUploadProgressEvents(boolean enabled, int intervalMillis) {
+    if(!enabled) {
+      NetworkingHelpers.setUploadProgressObserver(null, intervalMillis);
+      return;
+    }
+    NetworkingHelpers.setUploadProgressObserver(new NetworkingHelpers.UploadProgressObserver() {
+      @Override
+      public void onUploadProgress(long bytesWritten, long totalBytes) {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("bytesWritten", bytesWritten);
+        params.putDouble("totalBytes", totalBytes);
+        params.putDouble("progress", totalBytes > 0 ? (double) bytesWritten / totalBytes : 0);
+        emitDeviceEvent("FacetecUploadProgress", params);
+      }
+    }, intervalMillis);
+  }
+
+  /*
+   * Entries are stored encrypted (Android 6.0 and up only) and dropped once they are maxAgeHours old, whether
+   * or not the queue is still enabled.
+   */
+  @ReactMethod
+  public void SetUploadQueueEnabled(boolean enabled, int maxAgeHours) {
+    UploadQueue queue = UploadQueue.getInstance();
+    queue.setMaxAgeMillis(TimeUnit.HOURS.toMillis(Math.max(1, maxAgeHours)));
+    queue.setEnabled(enabled);
+  }
+
+  @ReactMethod
+  public void GetUploadQueueStatus(Callback callback) {
+    callback.invoke(toWritableMap(UploadQueue.getInstance().getStatus()));
+  }
+
+  @ReactMethod
+  public void FlushUploadQueue() {
+    UploadQueue.getInstance().flush();
+  }
+
+  /*
+   * When enabled, CheckId returns the ID images as { uri, bytes, mimeType } file entries under FrontImage /
+   * BackImage instead of FrontImagesCompressedBase64 / BackImagesCompressedBase64 strings.
+   */
+  @ReactMethod
+  public void SetImageFileCache(boolean enabled, int maxMegabytes) {
+    ImageFileCache cache = ImageFileCache.getInstance();
+    cache.setMaxBytes(maxMegabytes * 1024L * 1024L);
+    cache.setEnabled(enabled);
+  }
+
+  @ReactMethod
+  public void ClearImageFileCache() {
+    ImageFileCache.getInstance().clear();
+  }
+
+  private static WritableMap toWritableMap(UploadQueue.Status status) {
+    WritableMap params = Arguments.createMap();
+    params.putBoolean("enabled", status.enabled);
+    params.putInt("pending", status.pending);
+    params.putDouble("bytes", status.bytes);
+    params.putDouble("oldestQueuedAt", status.oldestQueuedAt);
+    params.putString("lastError", status.lastError);
+    return params;
+  }
+
+  /*
+   * Rolling per-span aggregates (count, mean, p50, p95, max in ms) over the most recent flows of each kind.
+   */
+  @ReactMethod
+  public void GetMetrics(Callback callback) {
+    WritableMap params = Arguments.createMap();
+    for(FlowMetrics.FlowSummary flow : FlowMetrics.snapshot()) {
+      WritableMap spans = Arguments.createMap();
+      for(Map.Entry<String, FlowMetrics.SpanSummary> entry : flow.spans.entrySet()) {
+        FlowMetrics.SpanSummary span = entry.getValue();
+        WritableMap summary = Arguments.createMap();
+        summary.putInt("count", span.count);
+        summary.putDouble("mean", span.meanMillis);
+        summary.putDouble("p50", span.p50Millis);
+        summary.putDouble("p95", span.p95Millis);
+        summary.putDouble("max", span.maxMillis);
+        spans.putMap(entry.getKey(), summary);
       }
+      WritableMap summary = Arguments.createMap();
+      summary.putDouble("completed", flow.completed);
+      summary.putDouble("failed", flow.failed);
+      summary.putMap("spans", spans);
+      params.putMap(flow.flow, summary);
     }
-  };
+    callback.invoke(params);
+  }
 
-  Processor.SessionTokenSuccessCallback sessionTokenSuccessCallback = new Processor.SessionTokenSuccessCallback() {
-    @Override
-    public void onSuccess(String msg) {
-      onSuccess.invoke(msg);
+  /*
+   * p50 / p95 / p99 of upload, server and whole-call time per endpoint, in ms. With reset the histograms start
+   * over, so consecutive calls report disjoint intervals.
+   */
+  @ReactMethod
+  public void GetLatencyHistograms(boolean reset, Callback callback) {
+    WritableMap params = Arguments.createMap();
+    for(Map.Entry<String, Map<LatencyRecorder.Metric, LatencyHistogram.Snapshot>> endpoint : LatencyRecorder.snapshot(reset).entrySet()) {
+      WritableMap metrics = Arguments.createMap();
+      for(Map.Entry<LatencyRecorder.Metric, LatencyHistogram.Snapshot> entry : endpoint.getValue().entrySet()) {
+        LatencyHistogram.Snapshot snapshot = entry.getValue();
+        WritableMap summary = Arguments.createMap();
+        summary.putDouble("count", snapshot.count);
+        summary.putDouble("mean", snapshot.meanMillis());
+        summary.putDouble("p50", snapshot.percentileMillis(0.50));
+        summary.putDouble("p95", snapshot.percentileMillis(0.95));
+        summary.putDouble("p99", snapshot.percentileMillis(0.99));
+        summary.putDouble("max", snapshot.maxMillis());
+        metrics.putMap(entry.getKey().key, summary);
+      }
+      params.putMap(endpoint.getKey(), metrics);
     }
-  };
+    callback.invoke(params);
+  }
+
+  /*
+   * The flows currently in progress, as [{ sessionId, flow }].
+   */
+  @ReactMethod
+  public void GetActiveSessions(Callback callback) {
+    WritableArray params = Arguments.createArray();
+    for(SessionRegistry.Session session : sessions.active()) {
+      WritableMap entry = Arguments.createMap();
+      entry.putString("sessionId", session.id);
+      entry.putString("flow", session.flow());
+      params.pushMap(entry);
+    }
+    callback.invoke(params);
+  }
+
+  private static WritableMap toWritableMap(String sessionId, FlowTimings.Record record) {
+    WritableMap spans = Arguments.createMap();
+    for(Map.Entry<String, Double> span : record.spansMillis.entrySet()) {
+      spans.putDouble(span.getKey(), span.getValue());
+    }
+    WritableMap params = Arguments.createMap();
+    params.putString("sessionId", sessionId);
+    params.putString("flow", record.flow);
+    params.putBoolean("success", record.success);
+    params.putMap("timings", spans);
+    return params;
+  }
+
+  interface SessionLauncher {
+    Processor launch(String sessionToken, String baseURL);
+  }
+
+  /*
+   * 'string' (default) keeps delivering success results as JSON strings, 'map' delivers them as objects.
+   */
+  @ReactMethod
+  public void SetResultFormat(String format) {
+    if("map".equalsIgnoreCase(format)) {
+      mapResults = true;
+    }
+    else if("string".equalsIgnoreCase(format)) {
+      mapResults = false;
+    }
+    else {
+      Log.d("FaceTecSDKSampleApp", "Unknown result format: " + format);
+    }
+  }
+
+  /*
+   * Defines a theme from { primaryColor, backgroundColor, accentColor, buttonTextColor, textColor,
+   * lowLightTextColor } color strings; missing keys keep the Sample Bank colors. It is compiled right away in
+   * the background.
+   */
+  @ReactMethod
+  public void DefineTheme(String name, ReadableMap colors) {
+    ThemeHelpers.Palette base = ThemeHelpers.Palette.SAMPLE_BANK;
+    ThemeRegistry.define(name, new ThemeHelpers.Palette(
+      getString(colors, "primaryColor", base.primaryColor),
+      getString(colors, "backgroundColor", base.backgroundColor),
+      getString(colors, "accentColor", base.accentColor),
+      getString(colors, "buttonTextColor", base.buttonTextColor),
+      getString(colors, "textColor", base.textColor),
+      getString(colors, "lowLightTextColor", base.lowLightTextColor)));
+  }
+
+  // Switches to a defined theme, which the SDK gets when the next session launches.
+  @ReactMethod
+  public void SetTheme(String name) {
+    ThemeRegistry.setTheme(name);
+  }
+
+  private static String getString(ReadableMap map, String key, String fallback) {
+    return map.hasKey(key) && !map.isNull(key) ? map.getString(key) : fallback;
+  }
+
+  @ReactMethod
+  public void SetPayloadEncoding(String encoding) {
+    try {
+      NetworkingHelpers.setPayloadEncoding(NetworkingHelpers.PayloadEncoding.valueOf(encoding.toUpperCase(Locale.ROOT)));
+    }
+    catch(IllegalArgumentException e) {
+      Log.d("FaceTecSDKSampleApp", "Unknown payload encoding: " + encoding);
+    }
+  }
+
+  /*
+   * Sends the audit trail images in a separate /audit-trail request after the FaceScan upload has been answered,
+   * so the result screen comes up sooner. Off by default; the backend has to accept that endpoint.
+   */
+  @ReactMethod
+  public void SetDeferredAuditTrail(boolean enabled) {
+    NetworkingHelpers.setAuditTrailDeferred(enabled);
+  }
+
+  // Result callbacks bound to one session, so a flow started later can't take over its JS callbacks.
+  private Processor.SessionTokenErrorCallback newErrorCallback(final SessionRegistry.Session session) {
+    return new Processor.SessionTokenErrorCallback() {
+      @Override
+      public void onError(String msg) {
+        try{
+          session.fail(msg, toWritableMap(session.id, session.timings.complete(false)));
+        }catch (Exception e){
+          e.printStackTrace();
+        }
+      }
+    };
+  }
+
+  private Processor.SessionTokenSuccessCallback newSuccessCallback(final SessionRegistry.Session session) {
+    return new Processor.SessionTokenSuccessCallback() {
+      @Override
+      public void onSuccess(SessionResult result) {
+        WritableMap timings = toWritableMap(session.id, session.timings.complete(true));
+        if(mapResults) {
+          try {
+            session.succeed(ResultMarshaller.toWritableMap(result), timings);
+            return;
+          }
+          catch(IOException e) {
+            // Not JSON after all, hand it over as it came.
+            Log.d("FaceTecSDKSampleApp", "Unable to convert result to a map: " + e.getMessage());
+          }
+        }
+        session.succeed(result.toLegacyString(), timings);
+      }
+    };
+  }
 }
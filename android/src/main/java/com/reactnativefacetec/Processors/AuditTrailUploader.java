@@ -0,0 +1,143 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facetec.sdk.FaceTecSDK;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/*
+ * Sends the audit trail images of a session in their own POST to /audit-trail, keyed by the FaceTec session id,
+ * once the FaceScan upload they were split from has been answered. Uploads go through their own client: a
+ * dispatcher that runs one call at a time on a background priority thread and a separate one-connection pool, so
+ * they don't take the shared client's dispatcher slots, threads or pooled connections from a flow's critical
+ * upload. They do still share the link's bandwidth. An upload that still fails after its retries goes to the
+ * UploadQueue, when enabled, to be replayed with the next connectivity change.
+ */
+class AuditTrailUploader {
+  static final String PATH = "/audit-trail";
+
+  // Encodes the payloads and waits for each upload, so they go out one after the other.
+  private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec audit trail upload");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  private static OkHttpClient client = null;
+  private static OkHttpClient clientSource = null;
+
+  private AuditTrailUploader() {
+  }
+
+  static Request newRequest(String baseURL, String sessionId, RequestBody body) {
+    return new Request.Builder()
+      .url(baseURL + PATH)
+      .header(RetryPolicy.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString())
+      .header("X-Device-Key", Config.DeviceKeyIdentifier)
+      .header("User-Agent", FaceTecSDK.createFaceTecAPIUserAgentString(sessionId))
+      .post(body)
+      .build();
+  }
+
+  static void send(final String baseURL, final String sessionId, final SessionPayload payload) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        RequestBody body;
+        try {
+          body = payload.put("sessionId", sessionId).toRequestBody(NetworkingHelpers.getPayloadEncoding());
+        }
+        catch(IllegalArgumentException e) {
+          Log.d("FaceTecSDKSampleApp", "Cannot encode audit trail for " + sessionId + ": " + e.getMessage());
+          return;
+        }
+        final Request request = newRequest(baseURL, sessionId, body);
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean[] delivered = {false};
+
+        new RetryingCall(getClient(), request, RetryPolicy.AUDIT_TRAIL, new Callback() {
+          @Override
+          public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            Log.d("FaceTecSDKSampleApp", "Audit trail upload failed for " + sessionId + ": " + e.getMessage());
+            done.countDown();
+          }
+
+          @Override
+          public void onResponse(@NonNull Call call, @NonNull Response response) {
+            int code = response.code();
+            response.close();
+            // A rejection is final, only a backend that couldn't take it yet is worth a replay.
+            delivered[0] = !RetryPolicy.isRetryableStatus(code);
+            if(!response.isSuccessful()) {
+              Log.d("FaceTecSDKSampleApp", "Audit trail upload for " + sessionId + " answered HTTP " + code);
+            }
+            done.countDown();
+          }
+        }).enqueue();
+
+        try {
+          done.await();
+        }
+        catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        if(!delivered[0] && UploadQueue.getInstance() != null) {
+          UploadQueue.getInstance().enqueue(request, body);
+        }
+      }
+    });
+  }
+
+  // Follows the shared client's settings, and rebuilds when setConnectionPoolConfig replaces it.
+  private static synchronized OkHttpClient getClient() {
+    OkHttpClient apiClient = NetworkingHelpers.getApiClient();
+    if(client == null || clientSource != apiClient) {
+      if(client != null) {
+        client.connectionPool().evictAll();
+      }
+      Dispatcher dispatcher = new Dispatcher(Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+          Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+              Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+              runnable.run();
+            }
+          }, "FaceTec audit trail call");
+          thread.setDaemon(true);
+          return thread;
+        }
+      }));
+      dispatcher.setMaxRequests(1);
+      client = apiClient.newBuilder()
+        .dispatcher(dispatcher)
+        .connectionPool(new ConnectionPool(1, 1, TimeUnit.MINUTES))
+        .build();
+      clientSource = apiClient;
+    }
+    return client;
+  }
+}
@@ -7,23 +7,10 @@
 package com.reactnativefacetec.Processors;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
-
-import androidx.annotation.NonNull;
 
 import com.facetec.sdk.*;
 
 import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.IOException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.RequestBody;
 
 public class AuthenticateProcessor extends Processor implements FaceTecFaceScanProcessor {
   private boolean _isSuccess = false;
@@ -40,6 +27,7 @@ public class AuthenticateProcessor extends Processor implements FaceTecFaceScanP
   // - sessionToken:  A valid Session Token you just created by calling your API to get a Session Token from the Server SDK.
   //
   public AuthenticateProcessor(String sessionToken, Context context) {
+    this.timings = new FlowTimings("authenticate");
     FaceTecSessionActivity.createAndLaunchSession(context, AuthenticateProcessor.this, sessionToken);
   }
 
@@ -48,7 +36,11 @@ public class AuthenticateProcessor extends Processor implements FaceTecFaceScanP
   //
   public AuthenticateProcessor(String token , String id, final Context context,
                                final SessionTokenErrorCallback sessionTokenErrorCallback,
-                               SessionTokenSuccessCallback sessionTokenSuccessCallback) {
+                               SessionTokenSuccessCallback sessionTokenSuccessCallback,
+                               FlowTimings timings,
+                               String baseURL) {
+    this.timings = timings;
+    this.baseURL = baseURL;
     this.sessionTokenSuccessCallback = sessionTokenSuccessCallback;
     this.sessionTokenErrorCallback = sessionTokenErrorCallback;
     this.id = id;
@@ -57,12 +49,15 @@ public class AuthenticateProcessor extends Processor implements FaceTecFaceScanP
   }
 
   public void processSessionWhileFaceTecSDKWaits(final FaceTecSessionResult sessionResult, final FaceTecFaceScanResultCallback faceScanResultCallback) {
+    timings.mark(FlowTimings.Stage.PROCESSING_STARTED);
+
     //
     // Part 3:  Handles early exit scenarios where there is no FaceScan to handle -- i.e. User Cancellation, Timeouts, etc.
     //
     if(sessionResult.getStatus() != FaceTecSessionStatus.SESSION_COMPLETED_SUCCESSFULLY) {
+      timings.complete(false);
       sessionTokenErrorCallback.onError("AuthenticateProcessor");
-      NetworkingHelpers.cancelPendingRequests();
+      cancel();
       faceScanResultCallback.cancel();
       return;
     }
@@ -70,105 +65,40 @@ public class AuthenticateProcessor extends Processor implements FaceTecFaceScanP
     //
     // Part 4:  Get essential data off the FaceTecSessionResult
     //
-    JSONObject parameters = new JSONObject();
-    try {
-      parameters.put("faceScan", sessionResult.getFaceScanBase64());
-      parameters.put("auditTrailImage", sessionResult.getAuditTrailCompressedBase64()[0]);
-      parameters.put("lowQualityAuditTrailImage", sessionResult.getLowQualityAuditTrailCompressedBase64()[0]);
-      parameters.put("externalDatabaseRefID", id);
-    }
-    catch(JSONException e) {
-      e.printStackTrace();
-      sessionTokenErrorCallback.onError("AuthenticateProcessor");
-      Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to create JSON payload for upload.");
-    }
-
-    //
-    // Part 5:  Make the Networking Call to Your Servers.  Below is just example code, you are free to customize based on how your own API works.
-    //
-    okhttp3.Request request = new okhttp3.Request.Builder()
-      .url(Config.BaseURL + "/match-3d-3d")
-      .header("Content-Type", "application/json")
-      .header("X-Device-Key", Config.DeviceKeyIdentifier)
-      .header("User-Agent", FaceTecSDK.createFaceTecAPIUserAgentString(sessionResult.getSessionId()))
-
-      //
-      // Part 7:  Demonstrates updating the Progress Bar based on the progress event.
-      //
-      .post(new ProgressRequestBody(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), parameters.toString()),
-        new ProgressRequestBody.Listener() {
-          @Override
-          public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
-            final float uploadProgressPercent = ((float)bytesWritten) / ((float)totalBytes);
-            faceScanResultCallback.uploadProgress(uploadProgressPercent);
-          }
-        }))
-      .build();
+    SessionPayload parameters = new SessionPayload();
+    parameters.putBlob("faceScan", sessionResult.getFaceScanBase64());
+    parameters.putOptionalBlob("auditTrailImage", sessionResult.getAuditTrailCompressedBase64()[0], PayloadTier.FULL);
+    parameters.putOptionalBlob("lowQualityAuditTrailImage", sessionResult.getLowQualityAuditTrailCompressedBase64()[0], PayloadTier.REDUCED);
+    parameters.put("externalDatabaseRefID", id);
 
     //
-    // Part 8:  Actually send the request.
+    // Part 5:  Upload through the shared SessionPipeline, which reports progress, decodes the response and advances or cancels the SDK.
     //
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new Callback() {
-      @Override
-      public void onResponse(@NonNull Call call, @NonNull okhttp3.Response response) throws IOException {
-
-        //
-        // Part 6:  In our Sample, we evaluate a boolean response and treat true as was successfully processed and should proceed to next step,
-        // and handle all other responses by cancelling out.
-        // You may have different paradigms in your own API and are free to customize based on these.
-        //
-
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-          boolean wasProcessed = responseJSON.getBoolean("wasProcessed");
-          String scanResultBlob = responseJSON.getString("scanResultBlob");
-
-          // In v9.2.0+, we key off a new property called wasProcessed to determine if we successfully processed the Session result on the Server.
-          // Device SDK UI flow is now driven by the proceedToNextStep function, which should receive the scanResultBlob from the Server SDK response.
-          if(wasProcessed) {
-
-            // Demonstrates dynamically setting the Success Screen Message.
-            FaceTecCustomization.overrideResultScreenSuccessMessage = "Authenticated";
+    new SessionPipeline("/match-3d-3d", sessionResult.getSessionId())
+      .captureDocument(true)
+      .timings(timings)
+      .owner(this)
+      .run(parameters, SessionPipeline.of(faceScanResultCallback), new SessionPipeline.Listener() {
+        @Override
+        public void onProcessed(SessionResponse response) {
+          // Demonstrates dynamically setting the Success Screen Message.
+          FaceTecCustomization.overrideResultScreenSuccessMessage = "Authenticated";
+        }
 
-            // In v9.2.0+, simply pass in scanResultBlob to the proceedToNextStep function to advance the User flow.
-            // scanResultBlob is a proprietary, encrypted blob that controls the logic for what happens next for the User.
-            _isSuccess = faceScanResultCallback.proceedToNextStep(scanResultBlob);
-            sessionTokenSuccessCallback.onSuccess(responseJSON.toString());
-          }
-          else {
-            // CASE:  UNEXPECTED response from API.  Our Sample Code keys off a wasProcessed boolean on the root of the JSON object --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-            faceScanResultCallback.cancel();
-          }
+        @Override
+        public void onProceeded(SessionResponse response, boolean proceeded) throws JSONException {
+          _isSuccess = proceeded;
+          timings.complete(true);
+          sessionTokenSuccessCallback.onSuccess(SessionResult.ofJson(response.documentJson()));
         }
-        catch(JSONException e) {
-          // CASE:  Parsing the response into JSON failed --> You define your own API contracts with yourself and may choose to do something different here based on the error.  Solid server-side code should ensure you don't get to this case.
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          faceScanResultCallback.cancel();
+
+        @Override
+        public void onFailed(SessionPipeline.Failure failure) {
+          timings.complete(false);
+          // Every way the upload can end without a result, so a JS caller is never left waiting.
           sessionTokenErrorCallback.onError("AuthenticateProcessor");
         }
-      }
-
-      @Override
-      public void onFailure(@NonNull Call call, IOException e) {
-        // CASE:  Network Request itself is erroring --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        faceScanResultCallback.cancel();
-      }
-    });
-
-    //
-    // Part 9:  For better UX, update the User if the upload is taking a while.  You are free to customize and enhance this behavior to your liking.
-    //
-    new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-      @Override
-      public void run() {
-        if(faceScanResultCallback == null) { return; }
-        faceScanResultCallback.uploadMessageOverride("Still Uploading...");
-      }
-    }, 6000);
+      });
   }
 
   public boolean isSuccess() {
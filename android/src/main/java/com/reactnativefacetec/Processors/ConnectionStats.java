@@ -0,0 +1,85 @@
+package com.reactnativefacetec.Processors;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/*
+ * Counts how often calls had to open a new connection versus reusing a pooled one, and how long the
+ * DNS + TCP + TLS setup took when they did. Reused calls skip that setup entirely, so
+ * reused * average handshake is the time pre-warming and keep-alive saved.
+ */
+public class ConnectionStats {
+  private static final AtomicLong callsStarted = new AtomicLong();
+  private static final AtomicLong connectionsOpened = new AtomicLong();
+  private static final AtomicLong handshakeNanosTotal = new AtomicLong();
+
+  public final long calls;
+  public final long opened;
+  public final long reused;
+  public final long averageHandshakeMillis;
+
+  private ConnectionStats(long calls, long opened, long handshakeNanos) {
+    this.calls = calls;
+    this.opened = opened;
+    this.reused = Math.max(0, calls - opened);
+    this.averageHandshakeMillis = opened == 0 ? 0 : handshakeNanos / opened / 1000000;
+  }
+
+  public long estimatedSavedMillis() {
+    return reused * averageHandshakeMillis;
+  }
+
+  public static ConnectionStats snapshot() {
+    return new ConnectionStats(callsStarted.get(), connectionsOpened.get(), handshakeNanosTotal.get());
+  }
+
+  static final EventListener.Factory LISTENER_FACTORY = new EventListener.Factory() {
+    @Override
+    public EventListener create(Call call) {
+      return new Listener();
+    }
+  };
+
+  // One instance per call, so the timestamps need no synchronization. Also feeds the LatencyRecorder histograms.
+  private static final class Listener extends LatencyRecorder.CallTimer {
+    private long dnsStartedAt = -1;
+    private long connectStartedAt = -1;
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+      callsStarted.incrementAndGet();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+      dnsStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+      connectStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+      long startedAt = dnsStartedAt != -1 ? dnsStartedAt : connectStartedAt;
+      connectionsOpened.incrementAndGet();
+      handshakeNanosTotal.addAndGet(System.nanoTime() - startedAt);
+      dnsStartedAt = -1;
+      connectStartedAt = -1;
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+      dnsStartedAt = -1;
+      connectStartedAt = -1;
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/*
+ * Picks the backend a new flow talks to from a list of candidate base URLs (regional deployments of the same
+ * API). Each candidate keeps a smoothed round trip time, fed by HEAD probes and by /session-token calls, which
+ * are cheap enough on the server to stand for network RTT. Candidates that fail twice in a row sit out a cooldown.
+ * Probes run when the list changes, when the SDK initializes and again once the last round is PROBE_INTERVAL old.
+ * Routing is per flow: session tokens are only valid on the backend that issued them, so a flow stays on the
+ * endpoint of its token no matter what the router prefers later.
+ */
+public class EndpointRouter {
+  static final long PROBE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  static final long COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  static final int FAILURES_BEFORE_COOLDOWN = 2;
+  // Only move away from the current choice for a clear win, a switch costs a fresh TLS handshake.
+  static final double SWITCH_MARGIN_MILLIS = 20;
+  private static final double RTT_SMOOTHING = 0.3;
+
+  private static final List<Endpoint> endpoints = new ArrayList<>();
+  private static Endpoint current = null;
+  private static long lastProbeAt = 0;
+
+  private EndpointRouter() {
+  }
+
+  private static class Endpoint {
+    final String baseURL;
+    // -1 until measured.
+    double rttMillis = -1;
+    int consecutiveFailures = 0;
+    long cooldownUntil = 0;
+
+    Endpoint(String baseURL) {
+      this.baseURL = baseURL;
+    }
+
+    boolean isHealthy(long now) {
+      return now >= cooldownUntil;
+    }
+  }
+
+  public static class Status {
+    public final String baseURL;
+    public final double rttMillis;
+    public final boolean healthy;
+    public final boolean selected;
+
+    Status(String baseURL, double rttMillis, boolean healthy, boolean selected) {
+      this.baseURL = baseURL;
+      this.rttMillis = rttMillis;
+      this.healthy = healthy;
+      this.selected = selected;
+    }
+  }
+
+  /*
+   * Replaces the candidates, most preferred first; an empty list goes back to Config.BaseURL alone.
+   * Measurements of base URLs that stay in the list are kept.
+   */
+  public static void setEndpoints(List<String> baseURLs) {
+    synchronized(EndpointRouter.class) {
+      List<Endpoint> next = new ArrayList<>();
+      for(String baseURL : baseURLs) {
+        Endpoint existing = find(baseURL);
+        next.add(existing != null ? existing : new Endpoint(baseURL));
+      }
+      endpoints.clear();
+      endpoints.addAll(next);
+      if(current != null && !endpoints.contains(current)) {
+        current = null;
+      }
+    }
+    probe();
+  }
+
+  /*
+   * The base URL a new flow (and its session token) should use: the fastest healthy candidate, or the first
+   * healthy one until any has been measured. Schedules a new probe round when the last one is stale.
+   */
+  public static String select() {
+    boolean stale;
+    String selected;
+    synchronized(EndpointRouter.class) {
+      ensureDefault();
+      long now = SystemClock.elapsedRealtime();
+      Endpoint best = null;
+      for(Endpoint endpoint : endpoints) {
+        if(endpoint.isHealthy(now) && isFaster(endpoint, best)) {
+          best = endpoint;
+        }
+      }
+      if(best == null) {
+        // Everything is cooling down, the earliest to come back is the best bet.
+        for(Endpoint endpoint : endpoints) {
+          if(best == null || endpoint.cooldownUntil < best.cooldownUntil) {
+            best = endpoint;
+          }
+        }
+      }
+      else if(current != null && current != best && current.isHealthy(now) && current.rttMillis >= 0
+        && best.rttMillis >= current.rttMillis - SWITCH_MARGIN_MILLIS) {
+        best = current;
+      }
+      current = best;
+      selected = best.baseURL;
+      stale = endpoints.size() > 1 && now - lastProbeAt >= PROBE_INTERVAL_MILLIS;
+    }
+    if(stale) {
+      probe();
+    }
+    return selected;
+  }
+
+  /*
+   * The best healthy candidate other than the given one, for a second attempt that should not share its fate;
+   * null when there is none.
+   */
+  public static synchronized String alternate(String baseURL) {
+    long now = SystemClock.elapsedRealtime();
+    Endpoint best = null;
+    for(Endpoint endpoint : endpoints) {
+      if(!endpoint.baseURL.equals(baseURL) && endpoint.isHealthy(now) && isFaster(endpoint, best)) {
+        best = endpoint;
+      }
+    }
+    return best != null ? best.baseURL : null;
+  }
+
+  /*
+   * Sends a HEAD request to every candidate. Besides measuring, this opens a pooled connection to each, which
+   * doubles as the connection warm-up.
+   */
+  public static void probe() {
+    List<String> baseURLs = new ArrayList<>();
+    synchronized(EndpointRouter.class) {
+      ensureDefault();
+      lastProbeAt = SystemClock.elapsedRealtime();
+      for(Endpoint endpoint : endpoints) {
+        baseURLs.add(endpoint.baseURL);
+      }
+    }
+
+    for(final String baseURL : baseURLs) {
+      Request request = new Request.Builder()
+        .url(baseURL)
+        .head()
+        .header("X-Device-Key", Config.DeviceKeyIdentifier)
+        .build();
+
+      NetworkingHelpers.getApiClient().newCall(request).enqueue(new Callback() {
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+          Log.d("FaceTecSDKSampleApp", "Endpoint probe failed for " + baseURL + ": " + e.getMessage());
+          recordFailure(baseURL);
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) {
+          // Any status is fine, the server answered.
+          recordResponse(baseURL, response);
+          response.close();
+        }
+      });
+    }
+  }
+
+  // Uses the send / receive timestamps OkHttp keeps, which leave out connection setup.
+  static void recordResponse(String baseURL, Response response) {
+    recordRtt(baseURL, response.receivedResponseAtMillis() - response.sentRequestAtMillis());
+  }
+
+  static synchronized void recordRtt(String baseURL, double rttMillis) {
+    Endpoint endpoint = find(baseURL);
+    if(endpoint == null) {
+      return;
+    }
+    endpoint.rttMillis = endpoint.rttMillis < 0 ? rttMillis : endpoint.rttMillis + RTT_SMOOTHING * (rttMillis - endpoint.rttMillis);
+    endpoint.consecutiveFailures = 0;
+    endpoint.cooldownUntil = 0;
+  }
+
+  // Any completed exchange proves the endpoint is up, even when its timing says nothing about RTT.
+  static synchronized void recordSuccess(String baseURL) {
+    Endpoint endpoint = find(baseURL);
+    if(endpoint != null) {
+      endpoint.consecutiveFailures = 0;
+      endpoint.cooldownUntil = 0;
+    }
+  }
+
+  static synchronized void recordFailure(String baseURL) {
+    Endpoint endpoint = find(baseURL);
+    if(endpoint == null) {
+      return;
+    }
+    endpoint.consecutiveFailures++;
+    if(endpoint.consecutiveFailures >= FAILURES_BEFORE_COOLDOWN) {
+      endpoint.cooldownUntil = SystemClock.elapsedRealtime() + COOLDOWN_MILLIS;
+    }
+  }
+
+  static synchronized boolean isHealthy(String baseURL) {
+    Endpoint endpoint = find(baseURL);
+    return endpoint == null || endpoint.isHealthy(SystemClock.elapsedRealtime());
+  }
+
+  public static synchronized List<Status> snapshot() {
+    ensureDefault();
+    long now = SystemClock.elapsedRealtime();
+    List<Status> statuses = new ArrayList<>();
+    for(Endpoint endpoint : endpoints) {
+      statuses.add(new Status(endpoint.baseURL, endpoint.rttMillis, endpoint.isHealthy(now), endpoint == current));
+    }
+    return statuses;
+  }
+
+  // Measured beats unmeasured, otherwise lower RTT wins; ties keep the earlier (preferred) candidate.
+  private static boolean isFaster(Endpoint candidate, Endpoint best) {
+    if(best == null) {
+      return true;
+    }
+    if(candidate.rttMillis < 0) {
+      return false;
+    }
+    return best.rttMillis < 0 || candidate.rttMillis < best.rttMillis;
+  }
+
+  private static void ensureDefault() {
+    if(endpoints.isEmpty()) {
+      endpoints.add(new Endpoint(Config.BaseURL));
+    }
+  }
+
+  private static Endpoint find(String baseURL) {
+    for(Endpoint endpoint : endpoints) {
+      if(endpoint.baseURL.equals(baseURL)) {
+        return endpoint;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,127 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Rolling aggregates over the last WINDOW completed flows of each kind, per span.
+ */
+public class FlowMetrics {
+  static final int WINDOW = 100;
+
+  private static final LinkedHashMap<String, FlowWindow> flows = new LinkedHashMap<>();
+
+  private FlowMetrics() {
+  }
+
+  static synchronized void record(FlowTimings.Record record) {
+    FlowWindow window = flows.get(record.flow);
+    if(window == null) {
+      window = new FlowWindow();
+      flows.put(record.flow, window);
+    }
+    window.add(record);
+  }
+
+  public static synchronized List<FlowSummary> snapshot() {
+    List<FlowSummary> summaries = new ArrayList<>();
+    for(Map.Entry<String, FlowWindow> entry : flows.entrySet()) {
+      summaries.add(entry.getValue().summarize(entry.getKey()));
+    }
+    return summaries;
+  }
+
+  public static synchronized void reset() {
+    flows.clear();
+  }
+
+  public static class FlowSummary {
+    public final String flow;
+    public final long completed;
+    public final long failed;
+    public final Map<String, SpanSummary> spans;
+
+    FlowSummary(String flow, long completed, long failed, Map<String, SpanSummary> spans) {
+      this.flow = flow;
+      this.completed = completed;
+      this.failed = failed;
+      this.spans = spans;
+    }
+  }
+
+  public static class SpanSummary {
+    public final int count;
+    public final double meanMillis;
+    public final double p50Millis;
+    public final double p95Millis;
+    public final double maxMillis;
+
+    SpanSummary(int count, double meanMillis, double p50Millis, double p95Millis, double maxMillis) {
+      this.count = count;
+      this.meanMillis = meanMillis;
+      this.p50Millis = p50Millis;
+      this.p95Millis = p95Millis;
+      this.maxMillis = maxMillis;
+    }
+  }
+
+  private static class FlowWindow {
+    private long completed = 0;
+    private long failed = 0;
+    private final LinkedHashMap<String, SpanWindow> spans = new LinkedHashMap<>();
+
+    void add(FlowTimings.Record record) {
+      completed++;
+      if(!record.success) {
+        failed++;
+      }
+      for(Map.Entry<String, Double> span : record.spansMillis.entrySet()) {
+        SpanWindow window = spans.get(span.getKey());
+        if(window == null) {
+          window = new SpanWindow();
+          spans.put(span.getKey(), window);
+        }
+        window.add(span.getValue());
+      }
+    }
+
+    FlowSummary summarize(String flow) {
+      LinkedHashMap<String, SpanSummary> summaries = new LinkedHashMap<>();
+      for(Map.Entry<String, SpanWindow> span : spans.entrySet()) {
+        summaries.put(span.getKey(), span.getValue().summarize());
+      }
+      return new FlowSummary(flow, completed, failed, summaries);
+    }
+  }
+
+  // Ring buffer of the most recent WINDOW samples.
+  private static class SpanWindow {
+    private final double[] samples = new double[WINDOW];
+    private int size = 0;
+    private int next = 0;
+
+    void add(double value) {
+      samples[next] = value;
+      next = (next + 1) % WINDOW;
+      size = Math.min(size + 1, WINDOW);
+    }
+
+    SpanSummary summarize() {
+      double[] sorted = Arrays.copyOf(samples, size);
+      Arrays.sort(sorted);
+      double sum = 0;
+      for(double value : sorted) {
+        sum += value;
+      }
+      return new SpanSummary(size, sum / size, percentile(sorted, 0.5), percentile(sorted, 0.95), sorted[size - 1]);
+    }
+
+    private static double percentile(double[] sorted, double p) {
+      int index = (int) Math.ceil(p * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Monotonic (System.nanoTime) timestamps for the stage boundaries of one verification flow, from the JS call
+ * to proceedToNextStep. Each boundary closes the span named after it, measured from the previous boundary
+ * that was reached. Flows that upload more than once (ID scan) complete after their last upload, and each
+ * boundary holds its latest mark, so the spans after the ID scan's processing started describe that last upload.
+ * Marks may come from any thread. Once completed, the record is frozen, added to FlowMetrics and handed to the
+ * completion listener, if any.
+ */
+public class FlowTimings {
+  public enum Stage {
+    TOKEN_ACQUIRED("tokenFetch"),
+    SESSION_LAUNCHED("sessionLaunch"),
+    // processSessionWhileFaceTecSDKWaits entry, the span before it is the user's time in the SDK UI.
+    PROCESSING_STARTED("userCapture"),
+    PAYLOAD_BUILT("payloadBuild"),
+    UPLOAD_SENT("upload"),
+    RESPONSE_RECEIVED("serverTime"),
+    RESPONSE_PARSED("responseParse"),
+    PROCEEDED("proceedToNextStep");
+
+    final String spanName;
+
+    Stage(String spanName) {
+      this.spanName = spanName;
+    }
+  }
+
+  public static final String TOTAL = "total";
+
+  public final String flow;
+  private final long startedAt = System.nanoTime();
+  private final long[] marks = new long[Stage.values().length];
+  private Record record = null;
+  private CompletionListener completionListener = null;
+
+  public FlowTimings(String flow) {
+    this.flow = flow;
+  }
+
+  public interface CompletionListener {
+    void onComplete(Record record);
+  }
+
+  // Called once, from whichever terminal path completes the flow first. Set before the flow can complete.
+  public synchronized void setCompletionListener(CompletionListener listener) {
+    this.completionListener = listener;
+  }
+
+  public synchronized void mark(Stage stage) {
+    if(record == null) {
+      marks[stage.ordinal()] = System.nanoTime();
+    }
+  }
+
+  /*
+   * Ends the flow and records it in FlowMetrics. Later calls return the same record, so every terminal path can
+   * call this without double counting.
+   */
+  public synchronized Record complete(boolean success) {
+    if(record != null) {
+      return record;
+    }
+    long end = System.nanoTime();
+    LinkedHashMap<String, Double> spans = new LinkedHashMap<>();
+    long previous = startedAt;
+    for(Stage stage : Stage.values()) {
+      long mark = marks[stage.ordinal()];
+      if(mark != 0) {
+        spans.put(stage.spanName, toMillis(mark - previous));
+        previous = mark;
+      }
+    }
+    spans.put(TOTAL, toMillis(end - startedAt));
+    record = new Record(flow, success, spans);
+    FlowMetrics.record(record);
+    if(completionListener != null) {
+      completionListener.onComplete(record);
+    }
+    return record;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  public static class Record {
+    public final String flow;
+    public final boolean success;
+    // Span name to duration in milliseconds, in stage order and ending with TOTAL.
+    public final Map<String, Double> spansMillis;
+
+    Record(String flow, boolean success, Map<String, Double> spansMillis) {
+      this.flow = flow;
+      this.success = success;
+      this.spansMillis = spansMillis;
+    }
+  }
+}
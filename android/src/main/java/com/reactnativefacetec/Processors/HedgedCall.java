@@ -0,0 +1,198 @@
+package com.reactnativefacetec.Processors;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/*
+ * Sends an idempotent request and, if it hasn't completed after hedgeDelayMillis, a second copy of it: to another
+ * healthy endpoint when there is one, otherwise over a connection pool of its own so it can't end up behind the
+ * same stalled connection. The first response wins and the other call is cancelled; a failure is only reported
+ * once every call that was sent has failed. Each hedge has to be paid for from a Budget.
+ */
+class HedgedCall {
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec hedge timer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private static OkHttpClient isolatedClient = null;
+  private static OkHttpClient isolatedClientSource = null;
+
+  interface RequestFactory {
+    Request create(String baseURL);
+  }
+
+  interface Callback {
+    // baseURL is the endpoint that answered.
+    void onResponse(String baseURL, Call call, Response response) throws IOException;
+
+    void onFailure(String baseURL, Call call, IOException e);
+  }
+
+  /*
+   * Hedges may add at most `ratio` extra requests per request made, plus a small burst. Every request earns
+   * `ratio` credits and a hedge spends a whole one.
+   */
+  static class Budget {
+    private static final double MAX_CREDITS = 2;
+
+    private volatile double ratio;
+    private double credits = 1;
+
+    Budget(double ratio) {
+      this.ratio = ratio;
+    }
+
+    void setRatio(double ratio) {
+      this.ratio = ratio;
+    }
+
+    synchronized void onRequest() {
+      credits = Math.min(MAX_CREDITS, credits + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+      if(credits < 1) {
+        return false;
+      }
+      credits -= 1;
+      return true;
+    }
+  }
+
+  private final RequestFactory factory;
+  private final String baseURL;
+  private final RetryPolicy policy;
+  private final Callback callback;
+  private RetryingCall primary;
+  private RetryingCall hedge;
+  private ScheduledFuture<?> timer;
+  private int outstanding = 0;
+  private boolean done = false;
+
+  private HedgedCall(RequestFactory factory, String baseURL, RetryPolicy policy, Callback callback) {
+    this.factory = factory;
+    this.baseURL = baseURL;
+    this.policy = policy;
+    this.callback = callback;
+  }
+
+  // A negative hedgeDelayMillis sends the request once, without a hedge.
+  static void enqueue(RequestFactory factory, String baseURL, RetryPolicy policy, long hedgeDelayMillis, final Budget budget, Callback callback) {
+    final HedgedCall call = new HedgedCall(factory, baseURL, policy, callback);
+    budget.onRequest();
+    synchronized(call) {
+      call.outstanding = 1;
+      call.primary = NetworkingHelpers.enqueueWithRetry(factory.create(baseURL), policy, call.listener(baseURL, false));
+      if(hedgeDelayMillis >= 0) {
+        call.timer = scheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            call.sendHedge(budget);
+          }
+        }, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private synchronized void sendHedge(Budget budget) {
+    if(done || !budget.tryAcquire()) {
+      return;
+    }
+    String alternate = EndpointRouter.alternate(baseURL);
+    Log.d("FaceTecSDKSampleApp", "Hedging " + baseURL + " with " + (alternate != null ? alternate : "a fresh connection"));
+
+    outstanding++;
+    if(alternate != null) {
+      hedge = NetworkingHelpers.enqueueWithRetry(factory.create(alternate), policy, listener(alternate, true));
+    }
+    else {
+      hedge = new RetryingCall(getIsolatedClient(), factory.create(baseURL), policy, listener(baseURL, true));
+      hedge.enqueue();
+    }
+  }
+
+  private okhttp3.Callback listener(final String attemptBaseURL, final boolean isHedge) {
+    return new okhttp3.Callback() {
+      @Override
+      public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+        synchronized(HedgedCall.this) {
+          if(done) {
+            response.close();
+            return;
+          }
+          done = true;
+          cancelTimer();
+          // Only the loser: cancelling the winner would close the body it is about to read.
+          cancel(isHedge ? primary : hedge);
+        }
+        callback.onResponse(attemptBaseURL, call, response);
+      }
+
+      @Override
+      public void onFailure(@NonNull Call call, @NonNull IOException e) {
+        synchronized(HedgedCall.this) {
+          if(done) {
+            return;
+          }
+          if(!RetryingCall.isCancellation(call, e)) {
+            EndpointRouter.recordFailure(attemptBaseURL);
+          }
+          outstanding--;
+          if(outstanding > 0) {
+            return;
+          }
+          // Nothing left in flight; a hedge that hasn't gone out yet would only add to a failing flow.
+          done = true;
+          cancelTimer();
+        }
+        callback.onFailure(attemptBaseURL, call, e);
+      }
+    };
+  }
+
+  private void cancelTimer() {
+    if(timer != null) {
+      timer.cancel(false);
+    }
+  }
+
+  private static void cancel(RetryingCall call) {
+    if(call != null) {
+      call.cancel();
+    }
+  }
+
+  private static synchronized OkHttpClient getIsolatedClient() {
+    OkHttpClient apiClient = NetworkingHelpers.getApiClient();
+    // Follows the shared client when setConnectionPoolConfig replaces it.
+    if(isolatedClient == null || isolatedClientSource != apiClient) {
+      if(isolatedClient != null) {
+        isolatedClient.connectionPool().evictAll();
+      }
+      isolatedClient = apiClient.newBuilder()
+        .connectionPool(new ConnectionPool(1, 1, TimeUnit.MINUTES))
+        .build();
+      isolatedClientSource = apiClient;
+    }
+    return isolatedClient;
+  }
+}
@@ -0,0 +1,206 @@
+package com.reactnativefacetec.Processors;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+
+/*
+ * Writes the base64 images a session hands back (e.g. the ID front / back) to files under the app's cache
+ * directory, so JS gets a file:// URI instead of a multi-MB string over the bridge.
+ * Writes happen on a single background thread. The directory is capped at maxBytes, least recently written
+ * files are evicted first, and files written by the current call are never evicted by it.
+ */
+public class ImageFileCache {
+  public static final long DEFAULT_MAX_BYTES = 20L * 1024 * 1024;
+
+  private static final String DIRECTORY_NAME = "facetec-images";
+
+  public interface Listener {
+    // Name to stored file, in the order the images were given.
+    void onStored(Map<String, Entry> entries);
+
+    void onError(String msg);
+  }
+
+  public static final class Entry {
+    public final String uri;
+    public final long bytes;
+    public final String mimeType;
+    final File file;
+
+    Entry(File file, long bytes, String mimeType) {
+      this.file = file;
+      this.uri = "file://" + file.getAbsolutePath();
+      this.bytes = bytes;
+      this.mimeType = mimeType;
+    }
+  }
+
+  private static ImageFileCache instance = null;
+
+  private final File directory;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec image cache");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  private volatile boolean enabled = false;
+  private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+  private ImageFileCache(Context context) {
+    this.directory = new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME);
+  }
+
+  public static synchronized ImageFileCache init(Context context) {
+    if(instance == null) {
+      instance = new ImageFileCache(context);
+    }
+    return instance;
+  }
+
+  // Null until the module has called init().
+  public static synchronized ImageFileCache getInstance() {
+    return instance;
+  }
+
+  // Processors only hand out file URIs while this is on; otherwise images stay inline as base64.
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void store(final Map<String, String> base64Images, final Listener listener) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        try {
+          if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+          }
+          for(Map.Entry<String, String> image : base64Images.entrySet()) {
+            entries.put(image.getKey(), write(image.getValue()));
+          }
+        }
+        catch(IOException | IllegalArgumentException e) {
+          Log.d("FaceTecSDKSampleApp", "Unable to cache images: " + e.getMessage());
+          for(Entry entry : entries.values()) {
+            entry.file.delete();
+          }
+          listener.onError(e.getMessage());
+          return;
+        }
+        evictOverflow(entries.values());
+        listener.onStored(entries);
+      }
+    });
+  }
+
+  public void clear() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        for(File file : listFiles()) {
+          file.delete();
+        }
+      }
+    });
+  }
+
+  private Entry write(String base64) throws IOException {
+    ByteString bytes = ByteString.decodeBase64(base64);
+    if(bytes == null) {
+      throw new IllegalArgumentException("Image is not valid base64");
+    }
+    String mimeType = mimeTypeOf(bytes);
+    File file = new File(directory, UUID.randomUUID().toString() + extensionFor(mimeType));
+    BufferedSink sink = Okio.buffer(Okio.sink(file));
+    try {
+      sink.write(bytes);
+    }
+    finally {
+      sink.close();
+    }
+    return new Entry(file, bytes.size(), mimeType);
+  }
+
+  // The files just written are kept regardless of the cap, they are about to be handed to JS.
+  private void evictOverflow(Collection<Entry> keep) {
+    HashSet<File> kept = new HashSet<>();
+    for(Entry entry : keep) {
+      kept.add(entry.file);
+    }
+    File[] files = listFiles();
+    long total = 0;
+    for(File file : files) {
+      total += file.length();
+    }
+    for(int i = 0; i < files.length && total > maxBytes; i++) {
+      if(!kept.contains(files[i])) {
+        total -= files[i].length();
+        files[i].delete();
+      }
+    }
+  }
+
+  // Oldest first.
+  private File[] listFiles() {
+    File[] files = directory.listFiles();
+    if(files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    return files;
+  }
+
+  private static String mimeTypeOf(ByteString bytes) {
+    if(bytes.size() >= 3 && bytes.getByte(0) == (byte) 0xFF && bytes.getByte(1) == (byte) 0xD8 && bytes.getByte(2) == (byte) 0xFF) {
+      return "image/jpeg";
+    }
+    if(bytes.size() >= 4 && bytes.getByte(0) == (byte) 0x89 && bytes.getByte(1) == 'P' && bytes.getByte(2) == 'N' && bytes.getByte(3) == 'G') {
+      return "image/png";
+    }
+    return "application/octet-stream";
+  }
+
+  private static String extensionFor(String mimeType) {
+    switch(mimeType) {
+      case "image/jpeg": return ".jpg";
+      case "image/png": return ".png";
+      default: return ".bin";
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Fixed-bucket log-linear histogram of durations in microseconds. Every power of two is split into
+ * SUB_BUCKETS linear buckets, so a reported percentile is within ~3% of the recorded value, from 1us up to
+ * MAX_MICROS (larger values land in the last bucket).
+ * record() is lock-free and allocation-free: a bucket index computed from the leading zeros and a few atomic
+ * adds, so it can run on OkHttp's threads in the middle of an upload.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_MAGNITUDE = 32;
+  static final long MAX_MICROS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+  static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sumMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  public void recordNanos(long nanos) {
+    record(nanos / 1000);
+  }
+
+  public void record(long micros) {
+    long value = Math.max(0, Math.min(micros, MAX_MICROS));
+    buckets.incrementAndGet(indexOf(value));
+    sumMicros.addAndGet(value);
+    long max = maxMicros.get();
+    while(value > max && !maxMicros.compareAndSet(max, value)) {
+      max = maxMicros.get();
+    }
+  }
+
+  /*
+   * Reads the histogram, optionally zeroing it. Values recorded while this runs end up in either this snapshot
+   * or the next one, never in both.
+   */
+  public Snapshot snapshot(boolean reset) {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+      count += counts[i];
+    }
+    long sum = reset ? sumMicros.getAndSet(0) : sumMicros.get();
+    long max = reset ? maxMicros.getAndSet(0) : maxMicros.get();
+    return new Snapshot(counts, count, sum, max);
+  }
+
+  static int indexOf(long value) {
+    if(value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int shift = magnitude - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  // Middle of the bucket's value range.
+  static long valueOf(int index) {
+    if(index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lower + ((1L << shift) >>> 1);
+  }
+
+  public static class Snapshot {
+    private final long[] counts;
+    public final long count;
+    public final long sumMicros;
+    public final long maxMicros;
+
+    Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+      this.counts = counts;
+      this.count = count;
+      this.sumMicros = sumMicros;
+      this.maxMicros = maxMicros;
+    }
+
+    public double meanMillis() {
+      return count == 0 ? 0 : sumMicros / 1000.0 / count;
+    }
+
+    public double maxMillis() {
+      return maxMicros / 1000.0;
+    }
+
+    // p in [0, 1], e.g. 0.95.
+    public double percentileMillis(double p) {
+      if(count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(p * count));
+      long seen = 0;
+      for(int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if(seen >= rank) {
+          return Math.min(valueOf(i), maxMicros) / 1000.0;
+        }
+      }
+      return maxMillis();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.reactnativefacetec.Processors;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/*
+ * Latency histograms per backend endpoint, fed by OkHttp's call events:
+ *   upload: request headers start to request body end (absent for calls without a body),
+ *   server: request fully sent to response headers received,
+ *   call:   the whole call, e.g. the token fetch for /session-token.
+ * Every attempt of a retried request is recorded on its own.
+ */
+public class LatencyRecorder {
+  public enum Metric {
+    UPLOAD("upload"),
+    SERVER("server"),
+    CALL("call");
+
+    public final String key;
+
+    Metric(String key) {
+      this.key = key;
+    }
+  }
+
+  static final String OTHER_ENDPOINT = "other";
+  private static final String[] ENDPOINTS = {
+    "/session-token", "/liveness-3d", "/enrollment-3d", "/match-3d-3d", "/match-3d-2d-idscan", OTHER_ENDPOINT
+  };
+
+  // [endpoint][metric], created once so recording never allocates.
+  private static final LatencyHistogram[][] histograms = new LatencyHistogram[ENDPOINTS.length][Metric.values().length];
+
+  static {
+    for(int e = 0; e < ENDPOINTS.length; e++) {
+      for(int m = 0; m < Metric.values().length; m++) {
+        histograms[e][m] = new LatencyHistogram();
+      }
+    }
+  }
+
+  private LatencyRecorder() {
+  }
+
+  static void record(int endpoint, Metric metric, long nanos) {
+    histograms[endpoint][metric.ordinal()].recordNanos(nanos);
+  }
+
+  /*
+   * Endpoint name to metric to snapshot, skipping endpoints that saw no calls.
+   */
+  public static Map<String, Map<Metric, LatencyHistogram.Snapshot>> snapshot(boolean reset) {
+    LinkedHashMap<String, Map<Metric, LatencyHistogram.Snapshot>> endpoints = new LinkedHashMap<>();
+    for(int e = 0; e < ENDPOINTS.length; e++) {
+      LinkedHashMap<Metric, LatencyHistogram.Snapshot> metrics = new LinkedHashMap<>();
+      boolean any = false;
+      for(Metric metric : Metric.values()) {
+        LatencyHistogram.Snapshot snapshot = histograms[e][metric.ordinal()].snapshot(reset);
+        metrics.put(metric, snapshot);
+        any |= snapshot.count > 0;
+      }
+      if(any) {
+        endpoints.put(ENDPOINTS[e], metrics);
+      }
+    }
+    return endpoints;
+  }
+
+  // One endpoint's histogram, read without resetting it.
+  static LatencyHistogram.Snapshot peek(String endpoint, Metric metric) {
+    for(int e = 0; e < ENDPOINTS.length - 1; e++) {
+      if(ENDPOINTS[e].equals(endpoint)) {
+        return histograms[e][metric.ordinal()].snapshot(false);
+      }
+    }
+    return histograms[ENDPOINTS.length - 1][metric.ordinal()].snapshot(false);
+  }
+
+  static int endpointIndex(Request request) {
+    List<String> segments = request.url().pathSegments();
+    String last = segments.get(segments.size() - 1);
+    for(int e = 0; e < ENDPOINTS.length - 1; e++) {
+      // ENDPOINTS entries start with "/", compare without building a new String.
+      if(ENDPOINTS[e].length() == last.length() + 1 && ENDPOINTS[e].regionMatches(1, last, 0, last.length())) {
+        return e;
+      }
+    }
+    return ENDPOINTS.length - 1;
+  }
+
+  /*
+   * Per-call event listener that times the call's phases. One instance per call, so plain fields are enough.
+   * ConnectionStats builds on it, OkHttp takes a single listener factory.
+   */
+  static class CallTimer extends EventListener {
+    private int endpoint;
+    private long callStartedAt;
+    private long requestStartedAt = -1;
+    private long requestSentAt = -1;
+
+    @Override
+    public void callStart(Call call) {
+      endpoint = endpointIndex(call.request());
+      callStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+      requestStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+      requestSentAt = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      requestSentAt = System.nanoTime();
+      if(requestStartedAt != -1) {
+        record(endpoint, Metric.UPLOAD, requestSentAt - requestStartedAt);
+      }
+    }
+
+    // responseHeadersStart fires before OkHttp blocks on the response, so the server span ends here.
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+      if(requestSentAt != -1) {
+        record(endpoint, Metric.SERVER, System.nanoTime() - requestSentAt);
+      }
+      requestStartedAt = -1;
+      requestSentAt = -1;
+    }
+
+    @Override
+    public void callEnd(Call call) {
+      record(endpoint, Metric.CALL, System.nanoTime() - callStartedAt);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+      record(endpoint, Metric.CALL, System.nanoTime() - callStartedAt);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.reactnativefacetec.Processors;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.telephony.TelephonyManager;
+
+/*
+ * Maps the active network to a ThroughputEstimator.NetworkClass. Needs init() with a Context first, until then
+ * (and when nothing is connected) the class is UNKNOWN.
+ */
+public class NetworkClassifier {
+  // TelephonyManager.NETWORK_TYPE_NR, which the compile SDK doesn't have yet.
+  private static final int NETWORK_TYPE_NR = 20;
+
+  private static Context context = null;
+
+  private NetworkClassifier() {
+  }
+
+  public static synchronized void init(Context appContext) {
+    context = appContext.getApplicationContext();
+  }
+
+  static synchronized ThroughputEstimator.NetworkClass current() {
+    if(context == null) {
+      return ThroughputEstimator.NetworkClass.UNKNOWN;
+    }
+    ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    NetworkInfo networkInfo = connectivityManager == null ? null : connectivityManager.getActiveNetworkInfo();
+    if(networkInfo == null || !networkInfo.isConnected()) {
+      return ThroughputEstimator.NetworkClass.UNKNOWN;
+    }
+    switch(networkInfo.getType()) {
+      case ConnectivityManager.TYPE_WIFI:
+      case ConnectivityManager.TYPE_ETHERNET:
+        return ThroughputEstimator.NetworkClass.WIFI;
+      case ConnectivityManager.TYPE_MOBILE:
+        return classifyCellular(networkInfo.getSubtype());
+      default:
+        return ThroughputEstimator.NetworkClass.UNKNOWN;
+    }
+  }
+
+  private static ThroughputEstimator.NetworkClass classifyCellular(int networkType) {
+    switch(networkType) {
+      case TelephonyManager.NETWORK_TYPE_GPRS:
+      case TelephonyManager.NETWORK_TYPE_EDGE:
+      case TelephonyManager.NETWORK_TYPE_CDMA:
+      case TelephonyManager.NETWORK_TYPE_1xRTT:
+      case TelephonyManager.NETWORK_TYPE_IDEN:
+      case TelephonyManager.NETWORK_TYPE_GSM:
+        return ThroughputEstimator.NetworkClass.CELLULAR_2G;
+      case TelephonyManager.NETWORK_TYPE_UMTS:
+      case TelephonyManager.NETWORK_TYPE_EVDO_0:
+      case TelephonyManager.NETWORK_TYPE_EVDO_A:
+      case TelephonyManager.NETWORK_TYPE_EVDO_B:
+      case TelephonyManager.NETWORK_TYPE_HSDPA:
+      case TelephonyManager.NETWORK_TYPE_HSUPA:
+      case TelephonyManager.NETWORK_TYPE_HSPA:
+      case TelephonyManager.NETWORK_TYPE_HSPAP:
+      case TelephonyManager.NETWORK_TYPE_EHRPD:
+      case TelephonyManager.NETWORK_TYPE_TD_SCDMA:
+        return ThroughputEstimator.NetworkClass.CELLULAR_3G;
+      case TelephonyManager.NETWORK_TYPE_LTE:
+      case TelephonyManager.NETWORK_TYPE_IWLAN:
+        return ThroughputEstimator.NetworkClass.CELLULAR_4G;
+      case NETWORK_TYPE_NR:
+        return ThroughputEstimator.NetworkClass.CELLULAR_5G;
+      default:
+        return ThroughputEstimator.NetworkClass.UNKNOWN;
+    }
+  }
+}
@@ -3,21 +3,24 @@ package com.reactnativefacetec.Processors;
 
 
 import android.os.Build;
+import android.os.SystemClock;
+
 import androidx.annotation.NonNull;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
+import okio.Buffer;
 import okio.BufferedSink;
+import okio.ForwardingSink;
 import okio.Okio;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocket;
@@ -25,34 +28,202 @@ import javax.net.ssl.SSLSocketFactory;
 
 public class NetworkingHelpers {
   private static OkHttpClient _apiClient = null;
+
+  // Idle connections are kept around long enough for the upload that follows a /session-token call to reuse them.
+  private static int maxIdleConnections = 5;
+  private static long keepAliveDurationMillis = TimeUnit.MINUTES.toMillis(5);
+
   private static OkHttpClient createApiClient() {
-    OkHttpClient client = new OkHttpClient.Builder()
+    OkHttpClient.Builder builder = new OkHttpClient.Builder()
       .connectTimeout(180, TimeUnit.SECONDS)
       .readTimeout(180,TimeUnit.SECONDS)
       .writeTimeout(180, TimeUnit.SECONDS)
-      .build();
+      .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMillis, TimeUnit.MILLISECONDS))
+      .eventListenerFactory(ConnectionStats.LISTENER_FACTORY);
 
     // Enabling support for TLSv1.1 and TLSv1.2 on Android 4.4 and below.
     if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
       try {
-        client = new OkHttpClient.Builder()
-          .sslSocketFactory(new TLSSocketFactory())
-          .build();
+        builder.sslSocketFactory(new TLSSocketFactory());
       } catch (KeyManagementException e) {
         e.printStackTrace();
       } catch (NoSuchAlgorithmException e) {
         e.printStackTrace();
       }
-
-      return client;
     }
 
-    return client;
+    return builder.build();
+  }
+
+  /*
+   * Sets the size and keep-alive of the connection pool. Calls made after this use a client with the new pool,
+   * which shares the old client's dispatcher; the old pool's idle connections are closed. Returns true when an
+   * existing client was replaced, so its warmed-up connections have to be opened again.
+   */
+  public static synchronized boolean setConnectionPoolConfig(int maxIdle, long keepAliveDuration, TimeUnit timeUnit) {
+    maxIdleConnections = maxIdle;
+    keepAliveDurationMillis = timeUnit.toMillis(keepAliveDuration);
+    if(_apiClient == null) {
+      return false;
+    }
+    OkHttpClient old = _apiClient;
+    _apiClient = old.newBuilder()
+      .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMillis, TimeUnit.MILLISECONDS))
+      .build();
+    // Connections still in use go back to the old pool and are closed by its own keep-alive cleanup.
+    old.connectionPool().evictAll();
+    return true;
   }
 
-  public static String OK_HTTP_BUILDER_TAG = "APIRequest";
   public static String OK_HTTP_RESPONSE_CANCELED = "Canceled";
 
+  /*
+   * How the processors put FaceScan / IDScan blobs on the wire.
+   * JSON sends them as base64 text inside a JSON body, MULTIPART sends them as raw multipart/form-data parts
+   * next to a JSON part holding the small fields. The backend has to accept the chosen format.
+   */
+  public enum PayloadEncoding {
+    JSON,
+    MULTIPART
+  }
+
+  private static volatile PayloadEncoding payloadEncoding = PayloadEncoding.JSON;
+
+  public static PayloadEncoding getPayloadEncoding() {
+    return payloadEncoding;
+  }
+
+  public static void setPayloadEncoding(PayloadEncoding encoding) {
+    payloadEncoding = encoding;
+  }
+
+  /*
+   * When on, FaceScan uploads carry only what the server needs to answer with a scanResultBlob; the audit trail
+   * images follow in a separate /audit-trail request once the answer is in. The backend has to accept it.
+   */
+  private static volatile boolean auditTrailDeferred = false;
+
+  public static boolean isAuditTrailDeferred() {
+    return auditTrailDeferred;
+  }
+
+  public static void setAuditTrailDeferred(boolean deferred) {
+    auditTrailDeferred = deferred;
+  }
+
+  /*
+   * When on, each FaceScan upload carries as many optional blobs as ThroughputEstimator expects to go out within
+   * the budget on the current network, see PayloadTier. The budget defaults to a third of the SDK's 60 second
+   * progress window, which leaves room for a retry and the server's own work.
+   */
+  private static volatile boolean adaptivePayload = false;
+  private static volatile long adaptivePayloadBudgetMillis = TimeUnit.SECONDS.toMillis(20);
+
+  public static boolean isAdaptivePayload() {
+    return adaptivePayload;
+  }
+
+  static long getAdaptivePayloadBudgetMillis() {
+    return adaptivePayloadBudgetMillis;
+  }
+
+  public static void setAdaptivePayload(boolean enabled, long budgetMillis) {
+    adaptivePayloadBudgetMillis = budgetMillis;
+    adaptivePayload = enabled;
+  }
+
+  // An upload that hasn't written a byte for this long is aborted as a network failure, 0 never aborts.
+  private static volatile long uploadStallTimeoutMillis = TimeUnit.SECONDS.toMillis(20);
+
+  static long getUploadStallTimeoutMillis() {
+    return uploadStallTimeoutMillis;
+  }
+
+  public static void setUploadStallTimeout(long timeoutMillis) {
+    uploadStallTimeoutMillis = timeoutMillis;
+  }
+
+  /*
+   * Uploads of at least resumableThresholdBytes go through ResumableUpload in chunks of resumableChunkBytes,
+   * smaller ones stay one-shot. The backend has to serve the /uploads protocol.
+   * A chunk is held in memory while it is sent, so its size is clamped to between 16 KB and 8 MB.
+   */
+  private static final long MIN_RESUMABLE_CHUNK_BYTES = 16 * 1024;
+  private static final long MAX_RESUMABLE_CHUNK_BYTES = 8 * 1024 * 1024;
+  private static volatile boolean resumableUploads = false;
+  private static volatile long resumableThresholdBytes = 1024 * 1024;
+  private static volatile int resumableChunkBytes = 256 * 1024;
+
+  public static void setResumableUploads(boolean enabled, long thresholdBytes, long chunkBytes) {
+    resumableThresholdBytes = Math.max(0, thresholdBytes);
+    resumableChunkBytes = (int) Math.min(MAX_RESUMABLE_CHUNK_BYTES, Math.max(MIN_RESUMABLE_CHUNK_BYTES, chunkBytes));
+    resumableUploads = enabled;
+  }
+
+  static boolean shouldUploadResumably(RequestBody body) {
+    if(!resumableUploads) {
+      return false;
+    }
+    try {
+      return body.contentLength() >= resumableThresholdBytes;
+    }
+    catch(IOException e) {
+      return false;
+    }
+  }
+
+  static int getResumableChunkBytes() {
+    return resumableChunkBytes;
+  }
+
+  private static volatile SessionTransport sessionTransport = new OkHttpSessionTransport();
+
+  static SessionTransport getSessionTransport() {
+    return sessionTransport;
+  }
+
+  /*
+   * Replaces the transport the processors upload through. Passing null restores the OkHttp transport.
+   */
+  public static void setSessionTransport(SessionTransport transport) {
+    sessionTransport = transport != null ? transport : new OkHttpSessionTransport();
+  }
+
+  /*
+   * Upload progress reaches the FaceTec SDK at most every progressIntervalMillis, or sooner when it has moved by
+   * progressMinDelta. An optional observer (e.g. JS events) gets its own, usually coarser, interval.
+   */
+  public interface UploadProgressObserver {
+    void onUploadProgress(long bytesWritten, long totalBytes);
+  }
+
+  private static volatile long progressIntervalMillis = 100;
+  private static volatile float progressMinDelta = 0.01f;
+  private static volatile UploadProgressObserver uploadProgressObserver = null;
+  private static volatile long uploadProgressObserverIntervalMillis = 250;
+
+  public static void setUploadProgressThrottle(long intervalMillis, float minDelta) {
+    progressIntervalMillis = intervalMillis;
+    progressMinDelta = minDelta;
+  }
+
+  public static void setUploadProgressObserver(UploadProgressObserver observer, long intervalMillis) {
+    uploadProgressObserverIntervalMillis = intervalMillis;
+    uploadProgressObserver = observer;
+  }
+
+  static UploadProgressObserver getUploadProgressObserver() {
+    return uploadProgressObserver;
+  }
+
+  static UploadProgressThrottle newUploadProgressThrottle() {
+    return new UploadProgressThrottle(progressIntervalMillis, progressMinDelta);
+  }
+
+  static UploadProgressThrottle newUploadProgressObserverThrottle() {
+    return new UploadProgressThrottle(uploadProgressObserverIntervalMillis, 0.05f);
+  }
+
   public static synchronized OkHttpClient getApiClient() {
     if (_apiClient == null) {
       _apiClient = createApiClient();
@@ -61,28 +232,25 @@ public class NetworkingHelpers {
   }
 
   /*
-   * Cancels all in flight requests.
+   * Sends the request with the timeouts and retry rules of its endpoint.
+   * The returned handle cancels whichever attempt is currently running.
    */
-  static public void cancelPendingRequests() {
-    OkHttpClient client = getApiClient();
-
-    // Cancel all queued calls
-    for (Call call : client.dispatcher().queuedCalls()) {
-      if(Objects.equals(call.request().tag(), OK_HTTP_BUILDER_TAG))
-        call.cancel();
-    }
-    // Cancel all running calls
-    for (Call call : client.dispatcher().runningCalls()) {
-      if (Objects.equals(call.request().tag(), OK_HTTP_BUILDER_TAG))
-        call.cancel();
-    }
+  static RetryingCall enqueueWithRetry(okhttp3.Request request, RetryPolicy policy, Callback callback) {
+    RetryingCall call = new RetryingCall(getApiClient(), request, policy, callback);
+    call.enqueue();
+    return call;
   }
 }
 
 /*
- * Implementation of RequestBody that allows upload progress to be retrieved
+ * Implementation of RequestBody that allows upload progress to be retrieved.
+ * Bytes are counted exactly as they are handed to the underlying sink, and updates are coalesced by
+ * UploadProgressThrottle before they reach the listener, so a multi-MB upload produces tens of callbacks
+ * rather than one per write.
  */
 class ProgressRequestBody extends RequestBody {
+  private static final long WRITE_STEP_BYTES = 16 * 1024;
+
   private final RequestBody requestBody;
   private Listener listener;
 
@@ -103,40 +271,36 @@ class ProgressRequestBody extends RequestBody {
 
   @Override
   public void writeTo(BufferedSink sink) throws IOException {
-    ProgressStream progressStream = new ProgressStream(sink.outputStream(), contentLength());
-    BufferedSink progressSink = Okio.buffer(Okio.sink(progressStream));
+    // Every attempt starts from zero, a retried request reports its progress again.
+    final long totalBytes = contentLength();
+    final UploadProgressThrottle throttle = NetworkingHelpers.newUploadProgressThrottle();
+    final NetworkingHelpers.UploadProgressObserver observer = NetworkingHelpers.getUploadProgressObserver();
+    final UploadProgressThrottle observerThrottle = observer == null ? null : NetworkingHelpers.newUploadProgressObserverThrottle();
+
+    BufferedSink progressSink = Okio.buffer(new ForwardingSink(sink) {
+      private long bytesWritten = 0;
+
+      @Override
+      public void write(@NonNull Buffer source, long byteCount) throws IOException {
+        // Large writes (e.g. a binary multipart part) are forwarded in steps so progress keeps moving.
+        while(byteCount > 0) {
+          long step = Math.min(byteCount, WRITE_STEP_BYTES);
+          super.write(source, step);
+          byteCount -= step;
+          bytesWritten += step;
+          if(throttle.shouldEmit(bytesWritten, totalBytes)) {
+            listener.onUploadProgressChanged(bytesWritten, totalBytes);
+          }
+          if(observer != null && observerThrottle.shouldEmit(bytesWritten, totalBytes)) {
+            observer.onUploadProgress(bytesWritten, totalBytes);
+          }
+        }
+      }
+    });
+    long startedAt = SystemClock.elapsedRealtime();
     requestBody.writeTo(progressSink);
     progressSink.flush();
-  }
-
-  protected final class ProgressStream extends OutputStream {
-    private final OutputStream stream;
-    private long totalBytes;
-    private long bytesSent;
-
-    ProgressStream(OutputStream stream, long totalBytes) {
-      this.stream = stream;
-      this.totalBytes = totalBytes;
-    }
-
-    @Override
-    public void write(@NonNull byte[] b, int off, int len) throws IOException {
-      this.stream.write(b, off, len);
-      if(len < b.length) {
-        this.bytesSent += len;
-      }
-      else {
-        this.bytesSent += b.length;
-      }
-      listener.onUploadProgressChanged(this.bytesSent, this.totalBytes);
-    }
-
-    @Override
-    public void write(int b) throws IOException {
-      this.stream.write(b);
-      this.bytesSent += 1;
-      listener.onUploadProgressChanged(this.bytesSent, this.totalBytes);
-    }
+    ThroughputEstimator.record(totalBytes, SystemClock.elapsedRealtime() - startedAt);
   }
 
   interface Listener {
@@ -0,0 +1,43 @@
+package com.reactnativefacetec.Processors;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/*
+ * Sends session requests through the shared OkHttp client, with the timeouts and retry rules of the endpoint.
+ */
+class OkHttpSessionTransport implements SessionTransport {
+  @Override
+  public Handle send(Request request, final Callback callback) {
+    final RetryingCall call = NetworkingHelpers.enqueueWithRetry(request, policyFor(request), new okhttp3.Callback() {
+      @Override
+      public void onResponse(@NonNull Call call, @NonNull Response response) {
+        callback.onResponse(response.body());
+      }
+
+      @Override
+      public void onFailure(@NonNull Call call, @NonNull IOException e) {
+        callback.onFailure(e, RetryingCall.isCancellation(call, e));
+      }
+    });
+
+    return new Handle() {
+      @Override
+      public void cancel() {
+        call.cancel();
+      }
+    };
+  }
+
+  // Base URLs may carry a path prefix, so the endpoint is the last path segment.
+  private static RetryPolicy policyFor(Request request) {
+    List<String> segments = request.url().pathSegments();
+    return RetryPolicy.forEndpoint("/" + segments.get(segments.size() - 1));
+  }
+}
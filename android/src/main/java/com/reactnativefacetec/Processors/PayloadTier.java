@@ -0,0 +1,17 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.Locale;
+
+/*
+ * How much optional data an upload carries, poorest first. FULL sends both audit trail images, REDUCED only the
+ * low quality one and MINIMAL neither. The tier goes out with the upload as the "payloadTier" field.
+ */
+public enum PayloadTier {
+  MINIMAL,
+  REDUCED,
+  FULL;
+
+  String wireName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
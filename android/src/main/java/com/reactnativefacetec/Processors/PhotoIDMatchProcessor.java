@@ -7,12 +7,6 @@
 package com.reactnativefacetec.Processors;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
-
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
 import com.facetec.sdk.FaceTecCustomization;
 import com.facetec.sdk.FaceTecFaceScanProcessor;
@@ -21,27 +15,23 @@ import com.facetec.sdk.FaceTecIDScanProcessor;
 import com.facetec.sdk.FaceTecIDScanResult;
 import com.facetec.sdk.FaceTecIDScanResultCallback;
 import com.facetec.sdk.FaceTecIDScanStatus;
-import com.facetec.sdk.FaceTecSDK;
 import com.facetec.sdk.FaceTecSessionActivity;
 import com.facetec.sdk.FaceTecSessionResult;
 import com.facetec.sdk.FaceTecSessionStatus;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import java.io.IOException;
 import java.util.ArrayList;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.RequestBody;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanProcessor, FaceTecIDScanProcessor {
   private boolean _isSuccess = false;
   private boolean faceScanWasSuccessful = false;
 
   private boolean successCallBackCalled = false;
+  // The response of the first processed ID upload, reported to JS once the ID flow is completely done.
+  private String firstProcessedJSON = null;
 
   SessionTokenSuccessCallback sessionTokenSuccessCallback;
   SessionTokenErrorCallback sessionTokenErrorCallback;
@@ -57,8 +47,10 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
   // - FaceTecFaceScanProcessor:  A class that implements FaceTecFaceScanProcessor, which handles the FaceScan when the User completes a Session.  In this example, "self" implements the class.
   // - sessionToken:  A valid Session Token you just created by calling your API to get a Session Token from the Server SDK.
   //
-  public PhotoIDMatchProcessor(String userId, String id, final Context context, final SessionTokenErrorCallback sessionTokenErrorCallback, SessionTokenSuccessCallback sessionTokenSuccessCallback) {
+  public PhotoIDMatchProcessor(String userId, String id, final Context context, final SessionTokenErrorCallback sessionTokenErrorCallback, SessionTokenSuccessCallback sessionTokenSuccessCallback, FlowTimings timings, String baseURL) {
     // For demonstration purposes, generate a new uuid for each Photo ID Match.  Enroll this in the DB and compare against the ID after it is scanned.
+    this.timings = timings;
+    this.baseURL = baseURL;
     this.sessionTokenSuccessCallback = sessionTokenSuccessCallback;
     this.sessionTokenErrorCallback = sessionTokenErrorCallback;
     this.id = userId;
@@ -74,6 +66,8 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
   // Part 2:  Handling the Result of a FaceScan
   //
   public void processSessionWhileFaceTecSDKWaits(final FaceTecSessionResult sessionResult, final FaceTecFaceScanResultCallback faceScanResultCallback) {
+    timings.mark(FlowTimings.Stage.PROCESSING_STARTED);
+
     //
     // DEVELOPER NOTE:  These properties are for demonstration purposes only so the Sample App can get information about what is happening in the processor.
     // In the code in your own App, you can pass around signals, flags, intermediates, and results however you would like.
@@ -83,7 +77,9 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
     // Part 3:  Handles early exit scenarios where there is no FaceScan to handle -- i.e. User Cancellation, Timeouts, etc.
     //
     if(sessionResult.getStatus() != FaceTecSessionStatus.SESSION_COMPLETED_SUCCESSFULLY) {
-      NetworkingHelpers.cancelPendingRequests();
+      timings.complete(false);
+      sessionTokenErrorCallback.onError("PhotoIDMatchProcessor");
+      cancel();
       faceScanResultCallback.cancel();
       return;
     }
@@ -94,110 +90,45 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
     //
     // Part 4:  Get essential data off the FaceTecSessionResult
     //
-    JSONObject parameters = new JSONObject();
-    try {
-      parameters.put("faceScan", sessionResult.getFaceScanBase64());
-      parameters.put("auditTrailImage", sessionResult.getAuditTrailCompressedBase64()[0]);
-      parameters.put("lowQualityAuditTrailImage", sessionResult.getLowQualityAuditTrailCompressedBase64()[0]);
-    }
-    catch(JSONException e) {
-      e.printStackTrace();
-      Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to create JSON payload for upload.");
-    }
+    SessionPayload parameters = new SessionPayload();
+    parameters.putBlob("faceScan", sessionResult.getFaceScanBase64());
+    parameters.putOptionalBlob("auditTrailImage", sessionResult.getAuditTrailCompressedBase64()[0], PayloadTier.FULL);
+    parameters.putOptionalBlob("lowQualityAuditTrailImage", sessionResult.getLowQualityAuditTrailCompressedBase64()[0], PayloadTier.REDUCED);
 
     //
-    // Part 5:  Make the Networking Call to Your Servers.  Below is just example code, you are free to customize based on how your own API works.
+    // Part 5:  Upload through the shared SessionPipeline, which reports progress, decodes the response and advances or cancels the SDK.
     //
-    okhttp3.Request request = new okhttp3.Request.Builder()
-      .url(Config.BaseURL + "/liveness-3d")
-      .header("Content-Type", "application/json")
-      .header("X-Device-Key", Config.DeviceKeyIdentifier)
-      .header("User-Agent", FaceTecSDK.createFaceTecAPIUserAgentString(sessionResult.getSessionId()))
-
-      //
-      // Part 7:  Demonstrates updating the Progress Bar based on the progress event.
-      //
-      .post(new ProgressRequestBody(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), parameters.toString()),
-        new ProgressRequestBody.Listener() {
-          @Override
-          public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
-            final float uploadProgressPercent = ((float)bytesWritten) / ((float)totalBytes);
-            faceScanResultCallback.uploadProgress(uploadProgressPercent);
-          }
-        }))
-      .build();
-
-    //
-    // Part 8:  Actually send the request.
-    //
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new Callback() {
-      @Override
-      public void onResponse(@NonNull Call call, @NonNull okhttp3.Response response) throws IOException {
-
-        //
-        // Part 6:  In our Sample, we evaluate a boolean response and treat true as was successfully processed and should proceed to next step,
-        // and handle all other responses by cancelling out.
-        // You may have different paradigms in your own API and are free to customize based on these.
-        //
-
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-          boolean wasProcessed = responseJSON.getBoolean("wasProcessed");
-          String scanResultBlob = responseJSON.getString("scanResultBlob");
-
-          // In v9.2.0+, we key off a new property called wasProcessed to determine if we successfully processed the Session result on the Server.
-          // Device SDK UI flow is now driven by the proceedToNextStep function, which should receive the scanResultBlob from the Server SDK response.
-          if(wasProcessed) {
-
-            // Demonstrates dynamically setting the Success Screen Message.
-            FaceTecCustomization.overrideResultScreenSuccessMessage = "Liveness\nConfirmed";
-
-            // In v9.2.0+, simply pass in scanResultBlob to the proceedToNextStep function to advance the User flow.
-            // scanResultBlob is a proprietary, encrypted blob that controls the logic for what happens next for the User.
-
-            _isSuccess = true;
-            faceScanWasSuccessful = faceScanResultCallback.proceedToNextStep(scanResultBlob);
-//            sessionTokenSuccessCallback.onSuccess("PhotoIDMatchProcessor");
-          }
-          else {
-            // CASE:  UNEXPECTED response from API.  Our Sample Code keys off a wasProcessed boolean on the root of the JSON object --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-            faceScanResultCallback.cancel();
-          }
-        }
-        catch(JSONException e) {
-          // CASE:  Parsing the response into JSON failed --> You define your own API contracts with yourself and may choose to do something different here based on the error.  Solid server-side code should ensure you don't get to this case.
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          faceScanResultCallback.cancel();
+    new SessionPipeline("/liveness-3d", sessionResult.getSessionId())
+      .timings(timings)
+      .owner(this)
+      .run(parameters, SessionPipeline.of(faceScanResultCallback), new SessionPipeline.Listener() {
+        @Override
+        public void onProcessed(SessionResponse response) {
+          // Demonstrates dynamically setting the Success Screen Message.
+          FaceTecCustomization.overrideResultScreenSuccessMessage = "Liveness\nConfirmed";
+          _isSuccess = true;
         }
-      }
 
-      @Override
-      public void onFailure(@NonNull Call call, @Nullable IOException e) {
-        // CASE:  Network Request itself is erroring --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        faceScanResultCallback.cancel();
-      }
-    });
+        @Override
+        public void onProceeded(SessionResponse response, boolean proceeded) {
+          faceScanWasSuccessful = proceeded;
+        }
 
-    //
-    // Part 9:  For better UX, update the User if the upload is taking a while.  You are free to customize and enhance this behavior to your liking.
-    //
-    new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-      @Override
-      public void run() {
-        if(faceScanResultCallback == null) { return; }
-        faceScanResultCallback.uploadMessageOverride("Still Uploading...");
-      }
-    }, 6000);
+        @Override
+        public void onFailed(SessionPipeline.Failure failure) {
+          // The ID scan has not started yet, the SDK cancellation ends the session.
+          timings.complete(false);
+          sessionTokenErrorCallback.onError("PhotoIDMatchProcessor");
+        }
+      });
   }
 
   //
   // Part 1:  Handling the Result of an IDScan
   //
   public void processIDScanWhileFaceTecSDKWaits(final FaceTecIDScanResult idScanResult, final FaceTecIDScanResultCallback idScanResultCallback) {
+    timings.mark(FlowTimings.Stage.PROCESSING_STARTED);
+
     //
     // DEVELOPER NOTE:  These properties are for demonstration purposes only so the Sample App can get information about what is happening in the processor.
     // In the code in your own App, you can pass around signals, flags, intermediates, and results however you would like.
@@ -207,7 +138,9 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
     // Part 2:  Handles early exit scenarios where there is no IDScan to handle -- i.e. User Cancellation, Timeouts, etc.
     //
     if(idScanResult.getStatus() != FaceTecIDScanStatus.SUCCESS) {
-      NetworkingHelpers.cancelPendingRequests();
+      timings.complete(false);
+      sessionTokenErrorCallback.onError("PhotoIDMatchProcessor");
+      cancel();
       idScanResultCallback.cancel();
       return;
     }
@@ -224,152 +157,135 @@ public class PhotoIDMatchProcessor extends Processor implements FaceTecFaceScanP
     //
     // Part 3: Get essential data off the FaceTecIDScanResult
     //
-    JSONObject parameters = new JSONObject();
-    try {
-      parameters.put("externalDatabaseRefID", id);
-      parameters.put("idScan", idScanResult.getIDScanBase64());
-      parameters.put("minMatchLevel", minMatchLevel);
-
-      frontImagesCompressedBase64 = idScanResult.getFrontImagesCompressedBase64();
-      backImagesCompressedBase64 = idScanResult.getBackImagesCompressedBase64();
-      if(frontImagesCompressedBase64.size() > 0) {
-        parameters.put("idScanFrontImage", frontImagesCompressedBase64.get(0));
-      }
-      if(backImagesCompressedBase64.size() > 0) {
-        parameters.put("idScanBackImage", backImagesCompressedBase64.get(0));
-      }
+    SessionPayload parameters = new SessionPayload();
+    parameters.put("externalDatabaseRefID", id);
+    parameters.putBlob("idScan", idScanResult.getIDScanBase64());
+    parameters.put("minMatchLevel", minMatchLevel);
+
+    frontImagesCompressedBase64 = idScanResult.getFrontImagesCompressedBase64();
+    backImagesCompressedBase64 = idScanResult.getBackImagesCompressedBase64();
+    if(frontImagesCompressedBase64.size() > 0) {
+      parameters.putBlob("idScanFrontImage", frontImagesCompressedBase64.get(0));
     }
-    catch(JSONException e) {
-      e.printStackTrace();
-      Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to create JSON payload for upload.");
+    if(backImagesCompressedBase64.size() > 0) {
+      parameters.putBlob("idScanBackImage", backImagesCompressedBase64.get(0));
     }
 
     //
-    // Part 4:  Make the Networking Call to Your Servers.  Below is just example code, you are free to customize based on how your own API works.
+    // Part 4:  Upload through the shared SessionPipeline, which reports progress, decodes the response and advances or cancels the SDK.
     //
-    okhttp3.Request request = new okhttp3.Request.Builder()
-      .url(Config.BaseURL + "/match-3d-2d-idscan")
-      .header("Content-Type", "application/json")
-      .header("X-Device-Key", Config.DeviceKeyIdentifier)
-      .header("User-Agent", FaceTecSDK.createFaceTecAPIUserAgentString(idScanResult.getSessionId()))
-
-      //
-      // Part 6:  Demonstrates updating the Progress Bar based on the progress event.
-      //
-      .post(new ProgressRequestBody(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), parameters.toString()),
-        new ProgressRequestBody.Listener() {
-          @Override
-          public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
-            final float uploadProgressPercent = ((float)bytesWritten) / ((float)totalBytes);
-            idScanResultCallback.uploadProgress(uploadProgressPercent);
-          }
-        }))
-      .build();
-
-    //
-    // Part 7:  Actually send the request.
-    //
-    NetworkingHelpers.getApiClient().newCall(request).enqueue(new Callback() {
-      @Override
-      public void onResponse(@NonNull Call call, @NonNull okhttp3.Response response) throws IOException {
-        //
-        // Part 17:  In our Sample, we evaluate a boolean response and treat true as success, false as "User Needs to Retry",
-        // and handle all other non-nominal responses by cancelling out.  You may have different paradigms in your own API and are free to customize based on these.
-        //
-        String responseString = response.body().string();
-        response.body().close();
-        try {
-          JSONObject responseJSON = new JSONObject(responseString);
-
-          boolean wasProcessed = responseJSON.getBoolean("wasProcessed");
-          String scanResultBlob = responseJSON.getString("scanResultBlob");
+    new SessionPipeline("/match-3d-2d-idscan", idScanResult.getSessionId())
+      .captureDocument(true)
+      .timings(timings)
+      .owner(this)
+      .run(parameters, SessionPipeline.of(idScanResultCallback), new SessionPipeline.Listener() {
+        @Override
+        public void onProcessed(SessionResponse response) throws JSONException {
           //
           // DEVELOPER NOTE:  These properties are for demonstration purposes only so the Sample App can get information about what is happening in the processor.
           // In the code in your own App, you can pass around signals, flags, intermediates, and results however you would like.
           //
-
-          int fullIDStatusEnumInt = responseJSON.getInt("fullIDStatusEnumInt");
-          int digitalIDSpoofStatusEnumInt = responseJSON.getInt("digitalIDSpoofStatusEnumInt");
-
-          if (wasProcessed) {
-            // CASE:  Success!  The ID Match was performed and the User successfully matched.
-
-            // In v9.2.0+, configure the messages that will be displayed to the User in each of the possible cases.
-            // Based on the internal processing and decision logic about how the flow gets advanced, the FaceTec SDK will use the appropriate, configured message.
-            // Please note that this programmatic API overrides these same Strings that can also be set via our standard, non-programmatic Text Customization & Localization APIs.
-            FaceTecCustomization.setIDScanResultScreenMessageOverrides(
-              "Your 3D Face\nMatched Your ID", // Successful scan of ID front-side (ID Types with no back-side).
-              "Your 3D Face\nMatched Your ID", // Successful scan of ID front-side (ID Types that do have a back-side).
-              "Back of ID Captured", // Successful scan of the ID back-side.
-              "ID Verification Complete", // Successful upload of final IDScan containing User-Confirmed ID Text.
-              "Face Didn't Match\nHighly Enough", // Case where a Retry is needed because the Face on the Photo ID did not Match the User's Face highly enough.
-              "ID Document\nNot Fully Visible", // Case where a Retry is needed because a Full ID was not detected with high enough confidence.
-              "ID Text Not Legible" // Case where a Retry is needed because the OCR did not produce good enough results and the User should Retry with a better capture.
-            );
-
-            // In v9.2.0+, simply pass in scanResultBlob to the proceedToNextStep function to advance the User flow.
-            // scanResultBlob is a proprietary, encrypted blob that controls the logic for what happens next for the User.
-            // Cases:
-            //   1.  User must re-scan the same side of the ID that they just tried.
-            //   2.  User succeeded in scanning the Front Side of the ID, there is no Back Side, and the User is now sent to the User OCR Confirmation UI.
-            //   3.  User succeeded in scanning the Front Side of the ID, there is a Back Side, and the User is sent to the Auto-Capture UI for the Back Side of their ID.
-            //   4.  User succeeded in scanning the Back Side of the ID, and the User is now sent to the User OCR Confirmation UI.
-            //   5.  The entire process is complete.  This occurs after sending up the final IDScan that contains the User OCR Data.
-
-
-            JSONObject obj = new JSONObject();
-            try {
-              obj.put("responseJSON", responseJSON.toString());
-
-              if(frontImagesCompressedBase64.size() > 0) {
-                obj.put("FrontImagesCompressedBase64", frontImagesCompressedBase64.get(0));
-              }
-              if(backImagesCompressedBase64.size() > 0) {
-                obj.put("BackImagesCompressedBase64", backImagesCompressedBase64.get(0));
-              }
-            } catch (Exception e) {
-              e.printStackTrace();
-            }
-
-            if (!successCallBackCalled) {
-              sessionTokenSuccessCallback.onSuccess(obj.toString());
-              successCallBackCalled = true;
-            }
-
-            _isSuccess = idScanResultCallback.proceedToNextStep(scanResultBlob);
+          int fullIDStatusEnumInt = response.fullIDStatusEnumInt();
+          int digitalIDSpoofStatusEnumInt = response.digitalIDSpoofStatusEnumInt();
+
+          // CASE:  Success!  The ID Match was performed and the User successfully matched.
+
+          // In v9.2.0+, configure the messages that will be displayed to the User in each of the possible cases.
+          // Based on the internal processing and decision logic about how the flow gets advanced, the FaceTec SDK will use the appropriate, configured message.
+          // Please note that this programmatic API overrides these same Strings that can also be set via our standard, non-programmatic Text Customization & Localization APIs.
+          FaceTecCustomization.setIDScanResultScreenMessageOverrides(
+            "Your 3D Face\nMatched Your ID", // Successful scan of ID front-side (ID Types with no back-side).
+            "Your 3D Face\nMatched Your ID", // Successful scan of ID front-side (ID Types that do have a back-side).
+            "Back of ID Captured", // Successful scan of the ID back-side.
+            "ID Verification Complete", // Successful upload of final IDScan containing User-Confirmed ID Text.
+            "Face Didn't Match\nHighly Enough", // Case where a Retry is needed because the Face on the Photo ID did not Match the User's Face highly enough.
+            "ID Document\nNot Fully Visible", // Case where a Retry is needed because a Full ID was not detected with high enough confidence.
+            "ID Text Not Legible" // Case where a Retry is needed because the OCR did not produce good enough results and the User should Retry with a better capture.
+          );
+
+          if(firstProcessedJSON == null) {
+            firstProcessedJSON = response.documentJson();
           }
-          else {
-            // CASE:  UNEXPECTED response from API.  Our Sample Code keys of a success boolean on the root of the JSON object --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-            idScanResultCallback.cancel();
-            sessionTokenErrorCallback.onError("PhotoIDMatchProcessor");
+        }
+
+        @Override
+        public void onProceeded(SessionResponse response, boolean proceeded) {
+          // In v9.2.0+, the scanResultBlob handed to proceedToNextStep controls what happens next for the User.
+          // Cases:
+          //   1.  User must re-scan the same side of the ID that they just tried.
+          //   2.  User succeeded in scanning the Front Side of the ID, there is no Back Side, and the User is now sent to the User OCR Confirmation UI.
+          //   3.  User succeeded in scanning the Front Side of the ID, there is a Back Side, and the User is sent to the Auto-Capture UI for the Back Side of their ID.
+          //   4.  User succeeded in scanning the Back Side of the ID, and the User is now sent to the User OCR Confirmation UI.
+          //   5.  The entire process is complete.  This occurs after sending up the final IDScan that contains the User OCR Data.
+          _isSuccess = proceeded;
+
+          // Only case 5 ends the flow. Completing earlier would drop the session while the SDK still uploads the
+          // back side and the OCR confirmation, which Cancel() and joined calls must still reach.
+          if(response.isCompletelyDone() && !successCallBackCalled) {
+            successCallBackCalled = true;
+            timings.complete(true);
+            reportSuccess(firstProcessedJSON);
           }
         }
-        catch(JSONException e) {
-          // CASE:  Parsing the response into JSON failed --> You define your own API contracts with yourself and may choose to do something different here based on the error.  Solid server-side code should ensure you don't get to this case.
-          e.printStackTrace();
-          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
-          idScanResultCallback.cancel();
+
+        @Override
+        public void onFailed(SessionPipeline.Failure failure) {
+          timings.complete(false);
+          sessionTokenErrorCallback.onError("PhotoIDMatchProcessor");
         }
-      }
+      });
+  }
+
+  /*
+   * Hands the ID scan result to JS. With the ImageFileCache enabled the ID images are written to files first and
+   * only their file:// URIs and metadata cross the bridge; otherwise (or if writing fails) they go inline as base64.
+   */
+  private void reportSuccess(final String responseJSON) {
+    final LinkedHashMap<String, String> images = new LinkedHashMap<>();
+    if(frontImagesCompressedBase64.size() > 0) {
+      images.put("FrontImage", frontImagesCompressedBase64.get(0));
+    }
+    if(backImagesCompressedBase64.size() > 0) {
+      images.put("BackImage", backImagesCompressedBase64.get(0));
+    }
+
+    ImageFileCache cache = ImageFileCache.getInstance();
+    if(cache == null || !cache.isEnabled() || images.isEmpty()) {
+      sessionTokenSuccessCallback.onSuccess(inlineResult(responseJSON, images));
+      return;
+    }
 
+    cache.store(images, new ImageFileCache.Listener() {
       @Override
-      public void onFailure(Call call, IOException e) {
-        // CASE:  Network Request itself is erroring --> You define your own API contracts with yourself and may choose to do something different here based on the error.
-        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
-        idScanResultCallback.cancel();
+      public void onStored(Map<String, ImageFileCache.Entry> entries) {
+        SessionResult result = SessionResult.ofFields()
+          .put("responseJSON", SessionResult.ofJson(responseJSON));
+        for(Map.Entry<String, ImageFileCache.Entry> entry : entries.entrySet()) {
+          result.put(entry.getKey(), SessionResult.ofFields()
+            .put("uri", entry.getValue().uri)
+            .put("bytes", entry.getValue().bytes)
+            .put("mimeType", entry.getValue().mimeType));
+        }
+        sessionTokenSuccessCallback.onSuccess(result);
       }
-    });
 
-    //
-    // Part 8:  For better UX, update the User if the upload is taking a while.  You are free to customize and enhance this behavior to your liking.
-    //
-    new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
       @Override
-      public void run() {
-        if(idScanResultCallback == null) { return; }
-        idScanResultCallback.uploadMessageOverride("Still Uploading...");
+      public void onError(String msg) {
+        sessionTokenSuccessCallback.onSuccess(inlineResult(responseJSON, images));
       }
-    }, 6000);
+    });
+  }
+
+  private static SessionResult inlineResult(String responseJSON, Map<String, String> images) {
+    SessionResult result = SessionResult.ofFields()
+      .put("responseJSON", SessionResult.ofJson(responseJSON));
+    if(images.containsKey("FrontImage")) {
+      result.put("FrontImagesCompressedBase64", images.get("FrontImage"));
+    }
+    if(images.containsKey("BackImage")) {
+      result.put("BackImagesCompressedBase64", images.get("BackImage"));
+    }
+    return result;
   }
 
 }
@@ -1,14 +1,55 @@
 package com.reactnativefacetec.Processors;
 
 public abstract class Processor {
+    // Stage timings of the flow this processor is part of.
+    FlowTimings timings;
+
+    // The endpoint that issued the flow's session token. Every upload of the flow goes there.
+    String baseURL = Config.BaseURL;
+
+    // The upload this flow currently has in flight, if any.
+    private SessionTransport.Handle inFlight;
+    private boolean canceled = false;
+
     public abstract boolean isSuccess();
 
+    /*
+     * Stops this flow: the upload in flight, if any, is cancelled and no further upload is started.
+     * Cancelling twice is harmless.
+     */
+    public void cancel() {
+        SessionTransport.Handle handle;
+        synchronized (this) {
+            canceled = true;
+            handle = inFlight;
+            inFlight = null;
+        }
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    // Called by SessionPipeline once an upload is on its way, so cancel() can reach it.
+    void track(SessionTransport.Handle handle) {
+        boolean cancelNow;
+        synchronized (this) {
+            cancelNow = canceled;
+            inFlight = cancelNow ? null : handle;
+        }
+        if (cancelNow && handle != null) {
+            handle.cancel();
+        }
+    }
+
     public interface SessionTokenErrorCallback {
         void onError(String msg);
     }
 
     public interface SessionTokenSuccessCallback {
-        void onSuccess(String msg);
+        void onSuccess(SessionResult result);
     }
 }
-
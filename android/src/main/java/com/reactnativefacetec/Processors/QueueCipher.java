@@ -0,0 +1,115 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/*
+ * Encrypts the upload queue's files with an AES-GCM key that never leaves the Android Keystore, so queued
+ * FaceScans and images don't sit on disk in the clear. Each file starts with its IV; GCM's tag makes a file that
+ * was tampered with, or written under a key that is gone (e.g. restored from a backup), fail to read.
+ * The Keystore only holds AES keys from Android 6.0 on, below that isAvailable() is false.
+ */
+final class QueueCipher {
+  private static final String KEYSTORE = "AndroidKeyStore";
+  private static final String KEY_ALIAS = "facetec-upload-queue";
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_BYTES = 12;
+  private static final int TAG_BITS = 128;
+
+  private QueueCipher() {
+  }
+
+  static boolean isAvailable() {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+  }
+
+  static BufferedSink encryptingSink(File file) throws IOException {
+    Cipher cipher;
+    try {
+      cipher = Cipher.getInstance(TRANSFORMATION);
+      // The Keystore picks a fresh IV for every file.
+      cipher.init(Cipher.ENCRYPT_MODE, key());
+    }
+    catch(GeneralSecurityException e) {
+      throw new IOException("Cannot encrypt " + file.getName(), e);
+    }
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(cipher.getIV());
+    }
+    catch(IOException e) {
+      out.close();
+      throw e;
+    }
+    return Okio.buffer(Okio.sink(new CipherOutputStream(out, cipher)));
+  }
+
+  // The size of what decryptingSource(file) yields, -1 for a file too short to be valid.
+  static long plaintextLength(File file) {
+    long length = file.length() - IV_BYTES - TAG_BITS / 8;
+    return length < 0 ? -1 : length;
+  }
+
+  static BufferedSource decryptingSource(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] iv = new byte[IV_BYTES];
+      for(int read = 0; read < iv.length; ) {
+        int step = in.read(iv, read, iv.length - read);
+        if(step < 0) {
+          throw new IOException("Truncated " + file.getName());
+        }
+        read += step;
+      }
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, iv));
+      return Okio.buffer(Okio.source(new CipherInputStream(in, cipher)));
+    }
+    catch(GeneralSecurityException e) {
+      in.close();
+      throw new IOException("Cannot decrypt " + file.getName(), e);
+    }
+    catch(IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  private static synchronized SecretKey key() throws GeneralSecurityException, IOException {
+    KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+    keyStore.load(null);
+    Key key = keyStore.getKey(KEY_ALIAS, null);
+    if(key instanceof SecretKey) {
+      return (SecretKey) key;
+    }
+    KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+    generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+      .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+      .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+      .setKeySize(256)
+      .build());
+    return generator.generateKey();
+  }
+}
@@ -0,0 +1,450 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.HashingSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+/*
+ * Sends a large session request in chunks, so a dropped connection only costs the chunk that was in flight.
+ * The protocol lives under {baseURL}/uploads:
+ *   POST  /uploads               Upload-Length, Upload-Digest (sha-256 of the whole body), Upload-Target (the
+ *                                endpoint path) and Upload-Content-Type, next to the request's own headers.
+ *                                Answers Upload-Id and Upload-Offset; a digest the server already holds resumes
+ *                                that upload instead of starting over.
+ *   PATCH /uploads/{id}          one chunk at Upload-Offset with its Chunk-Digest, which the server checks.
+ *                                Answers the acknowledged Upload-Offset, or 409 with its own when out of step.
+ *   HEAD  /uploads/{id}          the acknowledged Upload-Offset, asked after a failure before resuming.
+ *   POST  /uploads/{id}/complete once every byte is acknowledged: the server hands the assembled body to the
+ *                                target endpoint and answers with its response, the same one on every call.
+ * Nothing is written to disk: the request body can be written more than once, so each chunk is cut out of a
+ * fresh pass over it and only that chunk is held as bytes. A failure resumes from the server's offset under the
+ * endpoint's RetryPolicy, with its backoff and attempt limit per run of failures and its budget counted from the
+ * last acknowledged chunk. Endpoints that must only be sent once never come here (see SessionPipeline).
+ */
+class ResumableUpload implements SessionTransport.Handle {
+  static final String PATH = "/uploads";
+  static final String LENGTH_HEADER = "Upload-Length";
+  static final String DIGEST_HEADER = "Upload-Digest";
+  static final String TARGET_HEADER = "Upload-Target";
+  static final String CONTENT_TYPE_HEADER = "Upload-Content-Type";
+  static final String ID_HEADER = "Upload-Id";
+  static final String OFFSET_HEADER = "Upload-Offset";
+  static final String CHUNK_DIGEST_HEADER = "Chunk-Digest";
+
+  private static final int WRITE_STEP_BYTES = 16 * 1024;
+  private static final MediaType OCTET_STREAM = MediaType.parse("application/offset+octet-stream");
+
+  private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec resumable upload");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private final String uploadsURL;
+  private final String path;
+  private final Request request;
+  private final int chunkBytes;
+  private final ProgressRequestBody.Listener listener;
+  private final SessionTransport.Callback callback;
+  private final RetryPolicy policy;
+  private final OkHttpClient client;
+  private final UploadProgressThrottle throttle = NetworkingHelpers.newUploadProgressThrottle();
+  private final NetworkingHelpers.UploadProgressObserver observer = NetworkingHelpers.getUploadProgressObserver();
+  private final UploadProgressThrottle observerThrottle = NetworkingHelpers.newUploadProgressObserverThrottle();
+  private final CountDownLatch canceled = new CountDownLatch(1);
+  private volatile Call currentCall;
+  private String uploadId = null;
+  private long offset = 0;
+  private long length;
+  // When the server last acknowledged a chunk, the retry budget counts from there.
+  private long progressedAt;
+  // A response the upload ends with, handed to the callback unclosed.
+  private Response finalResponse = null;
+
+  private ResumableUpload(String baseURL, String path, Request request, int chunkBytes,
+                          ProgressRequestBody.Listener listener, SessionTransport.Callback callback) {
+    this.uploadsURL = baseURL + PATH;
+    this.path = path;
+    this.request = request;
+    this.chunkBytes = chunkBytes;
+    this.listener = listener;
+    this.callback = callback;
+    this.policy = RetryPolicy.forEndpoint(path);
+    this.client = NetworkingHelpers.getApiClient().newBuilder()
+      .connectTimeout(policy.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+      .readTimeout(policy.readTimeoutMillis, TimeUnit.MILLISECONDS)
+      .writeTimeout(policy.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+      // Every resend goes through the policy below, none happen silently inside OkHttp.
+      .retryOnConnectionFailure(false)
+      .build();
+  }
+
+  /*
+   * Starts uploading request (which goes to baseURL + path) in chunks of chunkBytes. Progress covers the whole
+   * body; the callback gets the target endpoint's response, or the last failure.
+   */
+  static ResumableUpload start(String baseURL, String path, Request request, int chunkBytes,
+                               ProgressRequestBody.Listener listener, SessionTransport.Callback callback) {
+    final ResumableUpload upload = new ResumableUpload(baseURL, path, request, chunkBytes, listener, callback);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        upload.run();
+      }
+    });
+    return upload;
+  }
+
+  @Override
+  public void cancel() {
+    canceled.countDown();
+    Call call = currentCall;
+    if(call != null) {
+      call.cancel();
+    }
+  }
+
+  private boolean isCanceled() {
+    return canceled.getCount() == 0;
+  }
+
+  private void run() {
+    Response response;
+    try {
+      response = upload();
+    }
+    catch(IOException e) {
+      callback.onFailure(e, isCanceled());
+      return;
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      callback.onFailure(new IOException("Interrupted"), true);
+      return;
+    }
+    catch(RuntimeException e) {
+      // The callback must still hear about it, or the SDK waits out its own timeout.
+      Log.d("FaceTecSDKSampleApp", "Upload to " + path + " failed: " + e);
+      if(finalResponse != null) {
+        finalResponse.close();
+      }
+      callback.onFailure(new IOException(e), false);
+      return;
+    }
+    callback.onResponse(response.body());
+  }
+
+  // Runs the upload to its end and returns the response it ended with.
+  private Response upload() throws IOException, InterruptedException {
+    String digest = measure();
+    progressedAt = SystemClock.elapsedRealtime();
+
+    int failures = 0;
+    while(true) {
+      checkCanceled();
+      try {
+        if(uploadId == null) {
+          create(digest);
+        }
+        else if(failures > 0) {
+          resync();
+        }
+        while(finalResponse == null && offset < length) {
+          sendChunk();
+          failures = 0;
+          progressedAt = SystemClock.elapsedRealtime();
+        }
+        if(finalResponse == null) {
+          complete();
+        }
+        return finalResponse;
+      }
+      catch(IOException e) {
+        checkCanceled();
+        failures++;
+        if(!policy.shouldRetry(failures)) {
+          throw e;
+        }
+        long delay = policy.backoffMillis(failures);
+        if(SystemClock.elapsedRealtime() + delay >= progressedAt + policy.budgetMillis) {
+          throw new RetryingCall.BudgetExhaustedException(path + " made no progress within its " + policy.budgetMillis + "ms budget", e);
+        }
+        Log.d("FaceTecSDKSampleApp", "Upload to " + path + " interrupted at " + offset + "/" + length + ", resuming in " + delay + "ms: " + e.getMessage());
+        if(canceled.await(delay, TimeUnit.MILLISECONDS)) {
+          checkCanceled();
+        }
+      }
+    }
+  }
+
+  // Writes the body once to learn its length and sha-256, in hex, without keeping any of it.
+  private String measure() throws IOException {
+    ChunkSink counter = new ChunkSink(0, 0);
+    HashingSink hashing = HashingSink.sha256(counter);
+    BufferedSink sink = Okio.buffer(hashing);
+    request.body().writeTo(sink);
+    sink.close();
+    length = counter.position;
+    return hashing.hash().hex();
+  }
+
+  // The count bytes of the body at from, from a fresh pass over it.
+  private byte[] readChunk(long from, int count) throws IOException {
+    ChunkSink chunkSink = new ChunkSink(from, count);
+    BufferedSink sink = Okio.buffer(chunkSink);
+    request.body().writeTo(sink);
+    sink.close();
+    if(chunkSink.position != length) {
+      throw new IllegalStateException("Body of " + path + " changed from " + length + " to " + chunkSink.position + " bytes");
+    }
+    return chunkSink.chunk.readByteArray();
+  }
+
+  private void create(String digest) throws IOException {
+    MediaType contentType = request.body().contentType();
+    Request.Builder builder = request.newBuilder()
+      .url(uploadsURL)
+      .header(LENGTH_HEADER, Long.toString(length))
+      .header(DIGEST_HEADER, "sha-256=" + digest)
+      .header(TARGET_HEADER, path)
+      .post(RequestBody.create(null, new byte[0]));
+    if(contentType != null) {
+      builder.header(CONTENT_TYPE_HEADER, contentType.toString());
+    }
+    Response response = execute(builder.build());
+    if(!accept(response)) {
+      return;
+    }
+    try {
+      String id = response.header(ID_HEADER);
+      if(id == null) {
+        throw new IOException("Missing " + ID_HEADER);
+      }
+      uploadId = id;
+      offset = readOffset(response);
+    }
+    finally {
+      response.close();
+    }
+    report(offset);
+  }
+
+  private void resync() throws IOException {
+    Response response = execute(uploadRequest("").head().build());
+    if(!accept(response)) {
+      return;
+    }
+    try {
+      offset = readOffset(response);
+    }
+    finally {
+      response.close();
+    }
+  }
+
+  private void sendChunk() throws IOException {
+    final long chunkOffset = offset;
+    final byte[] chunk = readChunk(chunkOffset, (int) Math.min(chunkBytes, length - chunkOffset));
+
+    RequestBody body = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return OCTET_STREAM;
+      }
+
+      @Override
+      public long contentLength() {
+        return chunk.length;
+      }
+
+      @Override
+      public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        for(int written = 0; written < chunk.length; ) {
+          int step = Math.min(WRITE_STEP_BYTES, chunk.length - written);
+          sink.write(chunk, written, step);
+          written += step;
+          report(chunkOffset + written);
+        }
+      }
+    };
+
+    long startedAt = SystemClock.elapsedRealtime();
+    Response response = execute(uploadRequest("")
+      .header(OFFSET_HEADER, Long.toString(chunkOffset))
+      .header(CHUNK_DIGEST_HEADER, "sha-256=" + ByteString.of(chunk).sha256().hex())
+      .patch(body)
+      .build());
+    if(response.code() == 409) {
+      // Out of step, e.g. an earlier chunk landed but its answer got lost. Carry on from the server's offset.
+      try {
+        offset = readOffset(response);
+      }
+      finally {
+        response.close();
+      }
+      if(offset <= chunkOffset) {
+        // No progress, so it counts as a failure; a server stuck answering 409 mustn't loop forever.
+        throw new IOException("HTTP 409 without progress at " + chunkOffset);
+      }
+      return;
+    }
+    if(!accept(response)) {
+      return;
+    }
+    try {
+      offset = readOffset(response);
+    }
+    finally {
+      response.close();
+    }
+    ThroughputEstimator.record(chunk.length, SystemClock.elapsedRealtime() - startedAt);
+  }
+
+  private void complete() throws IOException {
+    Response response = execute(uploadRequest("/complete").post(RequestBody.create(null, new byte[0])).build());
+    checkExpired(response);
+    if(RetryPolicy.isRetryableStatus(response.code())) {
+      response.close();
+      throw new IOException("HTTP " + response.code());
+    }
+    finalResponse = response;
+  }
+
+  private Request.Builder uploadRequest(String suffix) {
+    return new Request.Builder()
+      .url(uploadsURL + "/" + uploadId + suffix)
+      .headers(request.headers());
+  }
+
+  private Response execute(Request next) throws IOException {
+    checkCanceled();
+    Call call = client.newCall(next);
+    currentCall = call;
+    if(isCanceled()) {
+      call.cancel();
+    }
+    return call.execute();
+  }
+
+  /*
+   * True for a successful response. A retryable status is thrown like a dropped connection; any other failure
+   * is final and becomes finalResponse, for the callback, as it would have on a one-shot upload.
+   */
+  private boolean accept(Response response) throws IOException {
+    if(response.isSuccessful()) {
+      return true;
+    }
+    checkExpired(response);
+    if(RetryPolicy.isRetryableStatus(response.code())) {
+      response.close();
+      throw new IOException("HTTP " + response.code());
+    }
+    finalResponse = response;
+    return false;
+  }
+
+  // A 404 for the upload means the server dropped it, e.g. it expired; it is thrown so a new one gets started.
+  private void checkExpired(Response response) throws IOException {
+    if(response.code() == 404 && uploadId != null) {
+      response.close();
+      uploadId = null;
+      offset = 0;
+      throw new IOException("Upload expired");
+    }
+  }
+
+  private static long readOffset(Response response) throws IOException {
+    String value = response.header(OFFSET_HEADER);
+    if(value == null) {
+      throw new IOException("Missing " + OFFSET_HEADER);
+    }
+    try {
+      return Long.parseLong(value);
+    }
+    catch(NumberFormatException e) {
+      throw new IOException("Bad " + OFFSET_HEADER + ": " + value);
+    }
+  }
+
+  private void checkCanceled() throws IOException {
+    if(isCanceled()) {
+      throw new IOException(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED);
+    }
+  }
+
+  private void report(long bytesWritten) {
+    if(throttle.shouldEmit(bytesWritten, length)) {
+      listener.onUploadProgressChanged(bytesWritten, length);
+    }
+    if(observer != null && observerThrottle.shouldEmit(bytesWritten, length)) {
+      observer.onUploadProgress(bytesWritten, length);
+    }
+  }
+
+  // Counts the bytes written to it and keeps the ones in [from, from + count).
+  private static final class ChunkSink implements Sink {
+    private final long from;
+    private final long to;
+    final Buffer chunk = new Buffer();
+    long position = 0;
+
+    ChunkSink(long from, int count) {
+      this.from = from;
+      this.to = from + count;
+    }
+
+    @Override
+    public void write(@NonNull Buffer source, long byteCount) throws IOException {
+      long end = position + byteCount;
+      long start = Math.max(position, from);
+      long stop = Math.min(end, to);
+      if(start < stop) {
+        source.skip(start - position);
+        chunk.write(source, stop - start);
+        source.skip(end - stop);
+      }
+      else {
+        source.skip(byteCount);
+      }
+      position = end;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
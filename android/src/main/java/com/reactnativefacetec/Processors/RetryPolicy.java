@@ -0,0 +1,80 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Timeouts and retry rules for one backend endpoint.
+ * Retries use exponential backoff with full jitter and are only started inside a total budget that stays below
+ * the FaceTec SDK's 60 second progress window, so a retry never outlives the session it belongs to. A running
+ * attempt is bounded by its timeouts and, for uploads, by UploadSupervisor's stall abort instead.
+ * Only endpoints that are safe to replay are retried; uploads carry an Idempotency-Key header so the backend can
+ * recognize a replayed FaceScan.
+ */
+class RetryPolicy {
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+  // The SDK cancels from the Progress Screen when no progress is reported for 60 seconds.
+  static final long SDK_PROGRESS_WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+  static final RetryPolicy SESSION_TOKEN = new RetryPolicy(true, 10, 15, 15, 3, 250, 2000, 20);
+  static final RetryPolicy LIVENESS = new RetryPolicy(true, 10, 40, 40, 3, 500, 4000, 50);
+  static final RetryPolicy ENROLLMENT = new RetryPolicy(true, 10, 40, 40, 3, 500, 4000, 50);
+  static final RetryPolicy MATCH_3D_3D = new RetryPolicy(true, 10, 40, 40, 3, 500, 4000, 50);
+  // Each IDScan upload advances the server side ID flow, so it is sent once and only gets the longer timeouts.
+  static final RetryPolicy MATCH_3D_2D_IDSCAN = new RetryPolicy(false, 10, 50, 50, 1, 0, 0, 50);
+  // Nothing waits on the audit trail, so it gets more attempts and a longer backoff.
+  static final RetryPolicy AUDIT_TRAIL = new RetryPolicy(true, 10, 40, 40, 5, 1000, 16000, 60);
+  static final RetryPolicy DEFAULT = new RetryPolicy(false, 10, 40, 40, 1, 0, 0, 50);
+
+  private static final Random jitter = new Random();
+
+  final boolean retryable;
+  final long connectTimeoutMillis;
+  final long readTimeoutMillis;
+  final long writeTimeoutMillis;
+  final int maxAttempts;
+  final long baseDelayMillis;
+  final long maxDelayMillis;
+  final long budgetMillis;
+
+  RetryPolicy(boolean retryable, long connectTimeoutSeconds, long readTimeoutSeconds, long writeTimeoutSeconds,
+              int maxAttempts, long baseDelayMillis, long maxDelayMillis, long budgetSeconds) {
+    this.retryable = retryable;
+    this.connectTimeoutMillis = TimeUnit.SECONDS.toMillis(connectTimeoutSeconds);
+    this.readTimeoutMillis = TimeUnit.SECONDS.toMillis(readTimeoutSeconds);
+    this.writeTimeoutMillis = TimeUnit.SECONDS.toMillis(writeTimeoutSeconds);
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.budgetMillis = Math.min(TimeUnit.SECONDS.toMillis(budgetSeconds), SDK_PROGRESS_WINDOW_MILLIS);
+  }
+
+  static RetryPolicy forEndpoint(String path) {
+    switch(path) {
+      case "/session-token": return SESSION_TOKEN;
+      case "/liveness-3d": return LIVENESS;
+      case "/enrollment-3d": return ENROLLMENT;
+      case "/match-3d-3d": return MATCH_3D_3D;
+      case "/match-3d-2d-idscan": return MATCH_3D_2D_IDSCAN;
+      case "/audit-trail": return AUDIT_TRAIL;
+      default: return DEFAULT;
+    }
+  }
+
+  boolean shouldRetry(int attempt) {
+    return retryable && attempt < maxAttempts;
+  }
+
+  static boolean isRetryableStatus(int code) {
+    return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+  }
+
+  // Full jitter: a uniform delay between 0 and the capped exponential step for this attempt.
+  long backoffMillis(int attempt) {
+    long step = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 16));
+    synchronized(jitter) {
+      return step <= 0 ? 0 : (long) (jitter.nextDouble() * step);
+    }
+  }
+}
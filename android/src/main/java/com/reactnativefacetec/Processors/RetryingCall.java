@@ -0,0 +1,139 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/*
+ * Runs a request under a RetryPolicy: network failures and retryable HTTP statuses are replayed after a
+ * jittered backoff, as long as attempts and the time budget allow. The callback sees exactly one outcome,
+ * either the first usable response or the last failure.
+ * The budget only decides whether another attempt may start: an attempt that is running is never cut off by it,
+ * since a slow link that keeps moving bytes should finish (UploadSupervisor aborts one that stops). When a failure
+ * can't be retried for lack of budget the callback gets it wrapped in a BudgetExhaustedException.
+ * The request body is written again on every attempt, so it has to be replayable (all processor bodies are).
+ */
+class RetryingCall implements Callback {
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec retry scheduler");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private final OkHttpClient client;
+  private final Request request;
+  private final RetryPolicy policy;
+  private final Callback callback;
+  private long deadline;
+  private int attempt = 0;
+  private boolean budgetSpent = false;
+  private volatile Call currentCall;
+  private volatile boolean canceled = false;
+
+  // A failure that would have been retried, but the budget left no room for another attempt.
+  static final class BudgetExhaustedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    BudgetExhaustedException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  RetryingCall(OkHttpClient client, Request request, RetryPolicy policy, Callback callback) {
+    this.client = client.newBuilder()
+      .connectTimeout(policy.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+      .readTimeout(policy.readTimeoutMillis, TimeUnit.MILLISECONDS)
+      .writeTimeout(policy.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+      // OkHttp would otherwise resend a request whose connection failed mid-body, even one that must go once.
+      .retryOnConnectionFailure(policy.retryable)
+      .build();
+    this.request = request;
+    this.policy = policy;
+    this.callback = callback;
+  }
+
+  void enqueue() {
+    deadline = SystemClock.elapsedRealtime() + policy.budgetMillis;
+    start();
+  }
+
+  void cancel() {
+    canceled = true;
+    Call call = currentCall;
+    if(call != null) {
+      call.cancel();
+    }
+  }
+
+  // Whether a failure handed to the callback came from cancel().
+  static boolean isCancellation(Call call, IOException e) {
+    return call.isCanceled() && !(e instanceof BudgetExhaustedException);
+  }
+
+  private void start() {
+    attempt++;
+    Call call = client.newCall(request);
+    currentCall = call;
+    if(canceled) {
+      call.cancel();
+    }
+    call.enqueue(this);
+  }
+
+  @Override
+  public void onFailure(@NonNull Call call, @NonNull IOException e) {
+    if(!canceled && scheduleRetry(e.getMessage())) {
+      return;
+    }
+    if(budgetSpent) {
+      e = new BudgetExhaustedException(request.url().encodedPath() + " ran out of its " + policy.budgetMillis + "ms budget after " + attempt + " attempt(s)", e);
+    }
+    callback.onFailure(call, e);
+  }
+
+  @Override
+  public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+    if(RetryPolicy.isRetryableStatus(response.code()) && !canceled && scheduleRetry("HTTP " + response.code())) {
+      response.close();
+      return;
+    }
+    callback.onResponse(call, response);
+  }
+
+  private boolean scheduleRetry(String reason) {
+    if(!policy.shouldRetry(attempt)) {
+      return false;
+    }
+    long delay = policy.backoffMillis(attempt);
+    if(SystemClock.elapsedRealtime() + delay >= deadline) {
+      budgetSpent = true;
+      return false;
+    }
+
+    Log.d("FaceTecSDKSampleApp", "Retrying " + request.url().encodedPath() + " in " + delay + "ms after " + reason);
+    scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        // A cancel during the backoff still goes through start() so the callback sees the cancellation.
+        start();
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+    return true;
+  }
+}
@@ -0,0 +1,119 @@
+package com.reactnativefacetec.Processors;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facetec.sdk.FaceTecSDK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Initializes the FaceTec SDK at most once at a time, off the calling thread. Callers that arrive while an init
+ * is running are queued on it instead of starting their own; once it has succeeded every caller is answered
+ * straight from the cached state. A failed init is not sticky, the next caller tries again.
+ */
+public class SdkInitializer {
+  public enum State {
+    NOT_STARTED,
+    INITIALIZING,
+    READY,
+    FAILED
+  }
+
+  public interface Listener {
+    void onInitialized(boolean successful);
+  }
+
+  private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec SDK init");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private static volatile State state = State.NOT_STARTED;
+  private static final List<Listener> waiting = new ArrayList<>();
+
+  private SdkInitializer() {
+  }
+
+  public static State getState() {
+    return state;
+  }
+
+  public static boolean isReady() {
+    return state == State.READY;
+  }
+
+  /*
+   * Starts an init unless one is running or has succeeded. The listener, if any, is called once with the result,
+   * immediately when the SDK is already initialized.
+   */
+  public static void initialize(final Context context, Listener listener) {
+    boolean ready;
+    boolean start = false;
+    synchronized(SdkInitializer.class) {
+      ready = state == State.READY;
+      if(!ready) {
+        if(listener != null) {
+          waiting.add(listener);
+        }
+        if(state != State.INITIALIZING) {
+          state = State.INITIALIZING;
+          start = true;
+        }
+      }
+    }
+    if(ready) {
+      if(listener != null) {
+        listener.onInitialized(true);
+      }
+      return;
+    }
+    if(!start) {
+      return;
+    }
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // Open (and time) the backend connections while the SDK initializes, so the first /session-token call
+        // doesn't pay for the handshake and already goes to the fastest endpoint.
+        EndpointRouter.probe();
+
+        FaceTecSDK.initializeInProductionMode(
+          context,
+          Config.ProductionKeyText,
+          Config.DeviceKeyIdentifier,
+          Config.PublicFaceScanEncryptionKey, new FaceTecSDK.InitializeCallback() {
+            @Override
+            public void onCompletion(boolean successful) {
+              finish(successful);
+            }
+          }
+        );
+      }
+    });
+  }
+
+  private static void finish(boolean successful) {
+    List<Listener> listeners;
+    synchronized(SdkInitializer.class) {
+      state = successful ? State.READY : State.FAILED;
+      listeners = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+    Log.d("FaceTecSDKSampleApp", "FaceTec SDK init " + (successful ? "succeeded" : "failed"));
+    for(Listener listener : listeners) {
+      listener.onInitialized(successful);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.ByteString;
+
+/*
+ * Fields of a processor upload, kept apart from how they go over the wire.
+ * Blobs are the base64 FaceScan / IDScan / image Strings handed over by the FaceTec SDK. In JSON mode they are
+ * streamed as text like every other field; in MULTIPART mode they are decoded and sent as raw binary parts,
+ * which saves the ~33% base64 inflation, while the small fields travel together in a single JSON part.
+ */
+class SessionPayload {
+  static final String MULTIPART_FIELDS_PART = "parameters";
+  static final String TIER_FIELD = "payloadTier";
+  private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+  private final LinkedHashMap<String, Object> fields = new LinkedHashMap<>();
+  private final LinkedHashMap<String, String> blobs = new LinkedHashMap<>();
+  // Blobs the server doesn't need to produce the scanResultBlob (the audit trail images), with the poorest tier
+  // that still carries them.
+  private final LinkedHashMap<String, PayloadTier> optional = new LinkedHashMap<>();
+
+  SessionPayload put(String name, Object value) {
+    fields.put(name, value);
+    return this;
+  }
+
+  SessionPayload putBlob(String name, String base64) {
+    blobs.put(name, base64);
+    return this;
+  }
+
+  SessionPayload putOptionalBlob(String name, String base64, PayloadTier keptFrom) {
+    optional.put(name, keptFrom);
+    return putBlob(name, base64);
+  }
+
+  /*
+   * The richest tier whose blobs would go out within budgetMillis at bytesPerSecond, MINIMAL when none does.
+   * Sizes are those of the base64 text, which slightly overstates a multipart upload.
+   */
+  PayloadTier fitTier(double bytesPerSecond, long budgetMillis) {
+    PayloadTier[] tiers = PayloadTier.values();
+    for(int i = tiers.length - 1; i > 0; i--) {
+      if(blobLength(tiers[i]) * 1000.0 / bytesPerSecond <= budgetMillis) {
+        return tiers[i];
+      }
+    }
+    return PayloadTier.MINIMAL;
+  }
+
+  // Drops the optional blobs the tier doesn't carry and records the tier in the "payloadTier" field.
+  SessionPayload applyTier(PayloadTier tier) {
+    Iterator<Map.Entry<String, PayloadTier>> entries = optional.entrySet().iterator();
+    while(entries.hasNext()) {
+      Map.Entry<String, PayloadTier> entry = entries.next();
+      if(entry.getValue().compareTo(tier) > 0) {
+        blobs.remove(entry.getKey());
+        entries.remove();
+      }
+    }
+    return put(TIER_FIELD, tier.wireName());
+  }
+
+  private long blobLength(PayloadTier tier) {
+    long length = 0;
+    for(Map.Entry<String, String> blob : blobs.entrySet()) {
+      PayloadTier keptFrom = optional.get(blob.getKey());
+      if(keptFrom == null || keptFrom.compareTo(tier) <= 0) {
+        length += blob.getValue().length();
+      }
+    }
+    return length;
+  }
+
+  /*
+   * Moves the optional blobs out of this payload into one of their own, or returns null when there are none.
+   * The tier, if one was applied, is reported on both.
+   */
+  SessionPayload splitOptional() {
+    if(optional.isEmpty()) {
+      return null;
+    }
+    SessionPayload split = new SessionPayload();
+    for(String name : optional.keySet()) {
+      split.putBlob(name, blobs.remove(name));
+    }
+    optional.clear();
+    if(fields.containsKey(TIER_FIELD)) {
+      split.put(TIER_FIELD, fields.get(TIER_FIELD));
+    }
+    return split;
+  }
+
+  // Throws IllegalArgumentException for a blob that isn't valid base64 when encoding as MULTIPART.
+  RequestBody toRequestBody(NetworkingHelpers.PayloadEncoding encoding) {
+    if(encoding == NetworkingHelpers.PayloadEncoding.MULTIPART) {
+      return toMultipartBody();
+    }
+    return toJsonBody();
+  }
+
+  private StreamingJsonRequestBody toJsonBody() {
+    StreamingJsonRequestBody body = new StreamingJsonRequestBody();
+    for(Map.Entry<String, String> blob : blobs.entrySet()) {
+      body.put(blob.getKey(), blob.getValue());
+    }
+    for(Map.Entry<String, Object> field : fields.entrySet()) {
+      body.put(field.getKey(), field.getValue());
+    }
+    return body;
+  }
+
+  private MultipartBody toMultipartBody() {
+    StreamingJsonRequestBody fieldsBody = new StreamingJsonRequestBody();
+    for(Map.Entry<String, Object> field : fields.entrySet()) {
+      fieldsBody.put(field.getKey(), field.getValue());
+    }
+
+    MultipartBody.Builder builder = new MultipartBody.Builder()
+      .setType(MultipartBody.FORM)
+      .addFormDataPart(MULTIPART_FIELDS_PART, null, fieldsBody);
+
+    for(Map.Entry<String, String> blob : blobs.entrySet()) {
+      ByteString bytes = ByteString.decodeBase64(blob.getValue());
+      if(bytes == null) {
+        throw new IllegalArgumentException("Blob " + blob.getKey() + " is not valid base64");
+      }
+      builder.addFormDataPart(blob.getKey(), blob.getKey(), RequestBody.create(OCTET_STREAM, bytes));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,275 @@
+package com.reactnativefacetec.Processors;
+
+import android.util.Log;
+
+import com.facetec.sdk.FaceTecFaceScanResultCallback;
+import com.facetec.sdk.FaceTecIDScanResultCallback;
+import com.facetec.sdk.FaceTecSDK;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+/*
+ * The upload sequence shared by all processors, as four stages:
+ *   1. payload assembly: the SessionPayload is encoded and wrapped for upload progress,
+ *   2. transport: the request goes out through the configured SessionTransport, or as a ResumableUpload when large
+ *      and retryable,
+ *   3. response decoding: SessionResponseDecoder pulls out the fields the flow needs,
+ *   4. SDK callback: the FaceTec SDK is advanced with the scanResultBlob or cancelled.
+ * Processors only supply the payload and react to the outcome through a Listener.
+ */
+class SessionPipeline {
+  enum Failure {
+    // The request never produced a response (including cancellation).
+    NETWORK,
+    // The server answered with wasProcessed == false.
+    NOT_PROCESSED,
+    // The response could not be decoded, or the listener could not use it.
+    DECODE
+  }
+
+  /*
+   * The parts of FaceTecFaceScanResultCallback / FaceTecIDScanResultCallback the pipeline drives.
+   */
+  interface SdkCallback {
+    boolean proceedToNextStep(String scanResultBlob);
+
+    void cancel();
+
+    void uploadProgress(float progress);
+
+    void uploadMessageOverride(String message);
+  }
+
+  interface Listener {
+    // Called before the SDK is advanced, e.g. to set the result screen messages.
+    void onProcessed(SessionResponse response) throws JSONException;
+
+    void onProceeded(SessionResponse response, boolean proceeded) throws JSONException;
+
+    // Called after the SDK has been cancelled.
+    void onFailed(Failure failure);
+  }
+
+  private final String path;
+  private final String sessionId;
+  private boolean captureDocument = false;
+  private boolean queueOnFailure = false;
+  private FlowTimings timings = null;
+  private Processor owner = null;
+  private String baseURL = Config.BaseURL;
+
+  SessionPipeline(String path, String sessionId) {
+    this.path = path;
+    this.sessionId = sessionId;
+  }
+
+  // Keeps the whole response document for flows that hand it to JS.
+  SessionPipeline captureDocument(boolean captureDocument) {
+    this.captureDocument = captureDocument;
+    return this;
+  }
+
+  // Persists the upload in the UploadQueue when it fails on the network. Ignored for endpoints whose RetryPolicy
+  // forbids sending twice, a replay there would advance the server side flow again.
+  SessionPipeline queueOnFailure(boolean queueOnFailure) {
+    this.queueOnFailure = queueOnFailure;
+    return this;
+  }
+
+  // Receives the payload, upload, server, parse and proceed stage boundaries.
+  SessionPipeline timings(FlowTimings timings) {
+    this.timings = timings;
+    return this;
+  }
+
+  // The processor whose cancel() should stop this upload. A cancelled owner gets no upload at all.
+  // Its endpoint is the one the upload goes to.
+  SessionPipeline owner(Processor owner) {
+    this.owner = owner;
+    this.baseURL = owner.baseURL;
+    return this;
+  }
+
+  SessionTransport.Handle run(SessionPayload payload, final SdkCallback sdk, final Listener listener) {
+    if(owner != null && owner.isCanceled()) {
+      sdk.cancel();
+      listener.onFailed(Failure.NETWORK);
+      return null;
+    }
+
+    if(NetworkingHelpers.isAdaptivePayload()) {
+      ThroughputEstimator.setNetworkClass(NetworkClassifier.current());
+      PayloadTier tier = payload.fitTier(ThroughputEstimator.bytesPerSecond(), NetworkingHelpers.getAdaptivePayloadBudgetMillis());
+      Log.d("FaceTecSDKSampleApp", "Uploading " + path + " at tier " + tier + " on " + ThroughputEstimator.getNetworkClass());
+      payload.applyTier(tier);
+    }
+    // Taken out before encoding, so the critical upload goes without them.
+    final SessionPayload deferred = NetworkingHelpers.isAuditTrailDeferred() ? payload.splitOptional() : null;
+    final RequestBody uploadBody;
+    try {
+      uploadBody = payload.toRequestBody(NetworkingHelpers.getPayloadEncoding());
+    }
+    catch(IllegalArgumentException e) {
+      // A blob that isn't valid base64 can't be sent as a multipart part; nothing would ever answer the SDK.
+      Log.d("FaceTecSDKSampleApp", "Cannot encode " + path + " payload: " + e.getMessage());
+      sdk.cancel();
+      listener.onFailed(Failure.DECODE);
+      return null;
+    }
+    final UploadSupervisor supervisor = new UploadSupervisor(sdk, NetworkingHelpers.getUploadStallTimeoutMillis());
+    final ProgressRequestBody.Listener progressListener = new ProgressRequestBody.Listener() {
+      @Override
+      public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
+        if(bytesWritten >= totalBytes) {
+          mark(FlowTimings.Stage.UPLOAD_SENT);
+        }
+        supervisor.onProgress(bytesWritten, totalBytes);
+      }
+    };
+    // Large uploads go up in resumable chunks, which report their own progress; the rest in one shot. Chunks are
+    // retried, so an endpoint whose policy says to send it once always goes in one shot.
+    final boolean resumable = RetryPolicy.forEndpoint(path).retryable && NetworkingHelpers.shouldUploadResumably(uploadBody);
+    final Request request = new Request.Builder()
+      .url(baseURL + path)
+      .header(RetryPolicy.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString())
+      .header("X-Device-Key", Config.DeviceKeyIdentifier)
+      .header("User-Agent", FaceTecSDK.createFaceTecAPIUserAgentString(sessionId))
+      .post(resumable ? uploadBody : new ProgressRequestBody(uploadBody, progressListener))
+      .build();
+    mark(FlowTimings.Stage.PAYLOAD_BUILT);
+    supervisor.start();
+
+    SessionTransport.Callback transportCallback = new SessionTransport.Callback() {
+      @Override
+      public void onResponse(ResponseBody body) {
+        supervisor.stop();
+        mark(FlowTimings.Stage.RESPONSE_RECEIVED);
+        EndpointRouter.recordSuccess(baseURL);
+        // The server has the FaceScan, whatever it made of it the audit trail belongs with it.
+        if(deferred != null) {
+          AuditTrailUploader.send(baseURL, sessionId, deferred);
+        }
+        try {
+          SessionResponse response = SessionResponseDecoder.decode(body, captureDocument);
+          mark(FlowTimings.Stage.RESPONSE_PARSED);
+
+          // wasProcessed tells whether the server handled the Session result, the scanResultBlob then drives what
+          // the SDK shows next.
+          if(response.wasProcessed()) {
+            listener.onProcessed(response);
+            boolean proceeded = sdk.proceedToNextStep(response.scanResultBlob());
+            mark(FlowTimings.Stage.PROCEEDED);
+            listener.onProceeded(response, proceeded);
+          }
+          else {
+            sdk.cancel();
+            listener.onFailed(Failure.NOT_PROCESSED);
+          }
+        }
+        catch(JSONException e) {
+          e.printStackTrace();
+          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
+          sdk.cancel();
+          listener.onFailed(Failure.DECODE);
+        }
+      }
+
+      @Override
+      public void onFailure(IOException e, boolean canceled) {
+        supervisor.stop();
+        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
+        // A stall abort cancels the call, but for the flow it is a network failure like any other.
+        canceled = canceled && !supervisor.wasAborted();
+        if(!canceled) {
+          EndpointRouter.recordFailure(baseURL);
+        }
+        // The capture itself is good, keep it for a replay once the network is back.
+        if(queueOnFailure && RetryPolicy.forEndpoint(path).retryable && !canceled && UploadQueue.getInstance() != null) {
+          UploadQueue.getInstance().enqueue(request, uploadBody);
+          if(deferred != null) {
+            try {
+              // Queued after the FaceScan, so it is replayed after it too.
+              RequestBody auditTrailBody = deferred.put("sessionId", sessionId).toRequestBody(NetworkingHelpers.getPayloadEncoding());
+              UploadQueue.getInstance().enqueue(AuditTrailUploader.newRequest(baseURL, sessionId, auditTrailBody), auditTrailBody);
+            }
+            catch(IllegalArgumentException encodeFailure) {
+              Log.d("FaceTecSDKSampleApp", "Cannot encode audit trail for " + sessionId + ": " + encodeFailure.getMessage());
+            }
+          }
+        }
+        sdk.cancel();
+        listener.onFailed(Failure.NETWORK);
+      }
+    };
+    SessionTransport.Handle handle = resumable
+      ? ResumableUpload.start(baseURL, path, request, NetworkingHelpers.getResumableChunkBytes(), progressListener, transportCallback)
+      : NetworkingHelpers.getSessionTransport().send(request, transportCallback);
+
+    supervisor.attach(handle);
+    if(owner != null) {
+      owner.track(handle);
+    }
+    return handle;
+  }
+
+  private void mark(FlowTimings.Stage stage) {
+    if(timings != null) {
+      timings.mark(stage);
+    }
+  }
+
+  static SdkCallback of(final FaceTecFaceScanResultCallback callback) {
+    return new SdkCallback() {
+      @Override
+      public boolean proceedToNextStep(String scanResultBlob) {
+        return callback.proceedToNextStep(scanResultBlob);
+      }
+
+      @Override
+      public void cancel() {
+        callback.cancel();
+      }
+
+      @Override
+      public void uploadProgress(float progress) {
+        callback.uploadProgress(progress);
+      }
+
+      @Override
+      public void uploadMessageOverride(String message) {
+        callback.uploadMessageOverride(message);
+      }
+    };
+  }
+
+  static SdkCallback of(final FaceTecIDScanResultCallback callback) {
+    return new SdkCallback() {
+      @Override
+      public boolean proceedToNextStep(String scanResultBlob) {
+        return callback.proceedToNextStep(scanResultBlob);
+      }
+
+      @Override
+      public void cancel() {
+        callback.cancel();
+      }
+
+      @Override
+      public void uploadProgress(float progress) {
+        callback.uploadProgress(progress);
+      }
+
+      @Override
+      public void uploadMessageOverride(String message) {
+        callback.uploadMessageOverride(message);
+      }
+    };
+  }
+}
@@ -0,0 +1,70 @@
+package com.reactnativefacetec.Processors;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * The fields of a FaceTec Server response that the processors act on, as pulled out by SessionResponseDecoder.
+ * Getters throw JSONException for missing fields, the same way JSONObject does, so processors keep their
+ * existing error handling.
+ */
+class SessionResponse {
+  Boolean wasProcessed;
+  String scanResultBlob;
+  Integer fullIDStatusEnumInt;
+  Integer digitalIDSpoofStatusEnumInt;
+  Boolean isCompletelyDone;
+  // Raw JSON text of the "data" object and, when requested, of the whole document.
+  String dataJson;
+  String documentJson;
+
+  boolean wasProcessed() throws JSONException {
+    return require(wasProcessed, "wasProcessed");
+  }
+
+  String scanResultBlob() throws JSONException {
+    return require(scanResultBlob, "scanResultBlob");
+  }
+
+  int fullIDStatusEnumInt() throws JSONException {
+    return require(fullIDStatusEnumInt, "fullIDStatusEnumInt");
+  }
+
+  int digitalIDSpoofStatusEnumInt() throws JSONException {
+    return require(digitalIDSpoofStatusEnumInt, "digitalIDSpoofStatusEnumInt");
+  }
+
+  // Whether an ID scan upload ended the ID flow; a server that doesn't send the field ends it on every upload.
+  boolean isCompletelyDone() {
+    return isCompletelyDone == null || isCompletelyDone;
+  }
+
+  String dataJson() throws JSONException {
+    return require(dataJson, "data");
+  }
+
+  String documentJson() throws JSONException {
+    return require(documentJson, "document");
+  }
+
+  // The extracted top-level fields without the scanResultBlob, for when there is no "data" to report.
+  String summaryJson() {
+    JSONObject summary = new JSONObject();
+    try {
+      summary.put("wasProcessed", wasProcessed);
+      summary.put("fullIDStatusEnumInt", fullIDStatusEnumInt);
+      summary.put("digitalIDSpoofStatusEnumInt", digitalIDSpoofStatusEnumInt);
+    }
+    catch(JSONException e) {
+      e.printStackTrace();
+    }
+    return summary.toString();
+  }
+
+  private static <T> T require(T value, String name) throws JSONException {
+    if(value == null) {
+      throw new JSONException("No value for " + name);
+    }
+    return value;
+  }
+}
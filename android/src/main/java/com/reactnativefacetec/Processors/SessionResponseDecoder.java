@@ -0,0 +1,220 @@
+package com.reactnativefacetec.Processors;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import okhttp3.ResponseBody;
+
+/*
+ * Reads a FaceTec Server response in a single streaming pass over the response body.
+ * Only wasProcessed, scanResultBlob, fullIDStatusEnumInt, digitalIDSpoofStatusEnumInt, isCompletelyDone and the
+ * "data" object are kept; everything else is skipped without being materialized. Neither the raw body nor a
+ * JSONObject tree is ever built. Flows that hand the whole response to JS can ask for the document to be copied while reading.
+ */
+class SessionResponseDecoder {
+  private SessionResponseDecoder() {
+  }
+
+  static SessionResponse decode(ResponseBody body, boolean captureDocument) throws JSONException {
+    try {
+      return decode(body.charStream(), captureDocument);
+    }
+    finally {
+      body.close();
+    }
+  }
+
+  static SessionResponse decode(Reader source, boolean captureDocument) throws JSONException {
+    SessionResponse response = new SessionResponse();
+    JsonReader reader = new JsonReader(source);
+    StringWriter document = captureDocument ? new StringWriter() : null;
+    JsonWriter documentWriter = captureDocument ? new JsonWriter(document) : null;
+
+    try {
+      reader.beginObject();
+      if(documentWriter != null) {
+        documentWriter.beginObject();
+      }
+      while(reader.hasNext()) {
+        String name = reader.nextName();
+        if(documentWriter != null) {
+          documentWriter.name(name);
+        }
+
+        switch(name) {
+          case "wasProcessed":
+            if(reader.peek() == JsonToken.BOOLEAN) {
+              response.wasProcessed = reader.nextBoolean();
+              if(documentWriter != null) {
+                documentWriter.value(response.wasProcessed);
+              }
+              continue;
+            }
+            break;
+          case "scanResultBlob":
+            if(reader.peek() == JsonToken.STRING) {
+              response.scanResultBlob = reader.nextString();
+              if(documentWriter != null) {
+                documentWriter.value(response.scanResultBlob);
+              }
+              continue;
+            }
+            break;
+          case "fullIDStatusEnumInt":
+            if(reader.peek() == JsonToken.NUMBER) {
+              response.fullIDStatusEnumInt = reader.nextInt();
+              if(documentWriter != null) {
+                documentWriter.value(response.fullIDStatusEnumInt);
+              }
+              continue;
+            }
+            break;
+          case "digitalIDSpoofStatusEnumInt":
+            if(reader.peek() == JsonToken.NUMBER) {
+              response.digitalIDSpoofStatusEnumInt = reader.nextInt();
+              if(documentWriter != null) {
+                documentWriter.value(response.digitalIDSpoofStatusEnumInt);
+              }
+              continue;
+            }
+            break;
+          case "isCompletelyDone":
+            if(reader.peek() == JsonToken.BOOLEAN) {
+              response.isCompletelyDone = reader.nextBoolean();
+              if(documentWriter != null) {
+                documentWriter.value(response.isCompletelyDone);
+              }
+              continue;
+            }
+            break;
+          case "data":
+            if(reader.peek() == JsonToken.BEGIN_OBJECT) {
+              StringWriter data = new StringWriter();
+              JsonWriter dataWriter = new JsonWriter(data);
+              copyValue(reader, dataWriter, documentWriter);
+              dataWriter.flush();
+              response.dataJson = data.toString();
+              continue;
+            }
+            break;
+          default:
+            break;
+        }
+
+        // Anything else is either copied into the document or skipped outright.
+        if(documentWriter != null) {
+          copyValue(reader, documentWriter, null);
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if(documentWriter != null) {
+        documentWriter.endObject();
+        documentWriter.flush();
+        response.documentJson = document.toString();
+      }
+      return response;
+    }
+    catch(IOException | IllegalStateException | NumberFormatException e) {
+      e.printStackTrace();
+      throw new JSONException("Unable to decode response: " + e.getMessage());
+    }
+  }
+
+  // Copies the next value from the reader into one or two writers, token by token.
+  private static void copyValue(JsonReader reader, JsonWriter writer, JsonWriter secondWriter) throws IOException {
+    switch(reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        writer.beginObject();
+        if(secondWriter != null) {
+          secondWriter.beginObject();
+        }
+        while(reader.hasNext()) {
+          String name = reader.nextName();
+          writer.name(name);
+          if(secondWriter != null) {
+            secondWriter.name(name);
+          }
+          copyValue(reader, writer, secondWriter);
+        }
+        reader.endObject();
+        writer.endObject();
+        if(secondWriter != null) {
+          secondWriter.endObject();
+        }
+        break;
+      case BEGIN_ARRAY:
+        reader.beginArray();
+        writer.beginArray();
+        if(secondWriter != null) {
+          secondWriter.beginArray();
+        }
+        while(reader.hasNext()) {
+          copyValue(reader, writer, secondWriter);
+        }
+        reader.endArray();
+        writer.endArray();
+        if(secondWriter != null) {
+          secondWriter.endArray();
+        }
+        break;
+      case STRING: {
+        String value = reader.nextString();
+        writer.value(value);
+        if(secondWriter != null) {
+          secondWriter.value(value);
+        }
+        break;
+      }
+      case NUMBER: {
+        // nextString() keeps the literal, so integers don't pick up a trailing ".0".
+        Number value = parseNumber(reader.nextString());
+        writer.value(value);
+        if(secondWriter != null) {
+          secondWriter.value(value);
+        }
+        break;
+      }
+      case BOOLEAN: {
+        boolean value = reader.nextBoolean();
+        writer.value(value);
+        if(secondWriter != null) {
+          secondWriter.value(value);
+        }
+        break;
+      }
+      case NULL:
+        reader.nextNull();
+        writer.nullValue();
+        if(secondWriter != null) {
+          secondWriter.nullValue();
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unexpected token " + reader.peek());
+    }
+  }
+
+  private static Number parseNumber(String literal) {
+    if(literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+      try {
+        return Long.parseLong(literal);
+      }
+      catch(NumberFormatException e) {
+        // Too large for a long, fall through to double.
+      }
+    }
+    return Double.parseDouble(literal);
+  }
+}
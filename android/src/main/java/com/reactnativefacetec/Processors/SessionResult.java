@@ -0,0 +1,88 @@
+package com.reactnativefacetec.Processors;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * What a processor reports on success, before it is put into a particular shape for JS: either a JSON document
+ * as the server sent it (e.g. the "data" object), or named fields whose values are String, Number, Boolean or a
+ * nested SessionResult. FacetecModule either converts it straight into native maps or renders the legacy
+ * string with toLegacyString().
+ */
+public class SessionResult {
+  private final String json;
+  private final LinkedHashMap<String, Object> fields;
+
+  private SessionResult(String json, LinkedHashMap<String, Object> fields) {
+    this.json = json;
+    this.fields = fields;
+  }
+
+  public static SessionResult ofJson(String json) {
+    return new SessionResult(json, null);
+  }
+
+  public static SessionResult ofFields() {
+    return new SessionResult(null, new LinkedHashMap<String, Object>());
+  }
+
+  SessionResult put(String name, Object value) {
+    if(fields == null) {
+      throw new IllegalStateException("A JSON document result has no fields");
+    }
+    if(!(value instanceof String) && !(value instanceof Number) && !(value instanceof Boolean) && !(value instanceof SessionResult)) {
+      throw new IllegalArgumentException("Unsupported result value for " + name);
+    }
+    fields.put(name, value);
+    return this;
+  }
+
+  public boolean isJson() {
+    return json != null;
+  }
+
+  // Null for field results.
+  public String json() {
+    return json;
+  }
+
+  // Empty for JSON document results.
+  public Map<String, Object> fields() {
+    return fields == null ? Collections.<String, Object>emptyMap() : Collections.unmodifiableMap(fields);
+  }
+
+  /*
+   * The String the success callbacks have always delivered: a document as-is, fields as a JSON object in which
+   * nested documents are embedded as JSON strings.
+   */
+  public String toLegacyString() {
+    if(json != null) {
+      return json;
+    }
+    return toLegacyObject().toString();
+  }
+
+  private JSONObject toLegacyObject() {
+    JSONObject obj = new JSONObject();
+    try {
+      for(Map.Entry<String, Object> field : fields.entrySet()) {
+        Object value = field.getValue();
+        if(value instanceof SessionResult) {
+          SessionResult nested = (SessionResult) value;
+          obj.put(field.getKey(), nested.isJson() ? nested.json : nested.toLegacyObject());
+        }
+        else {
+          obj.put(field.getKey(), value);
+        }
+      }
+    }
+    catch(JSONException e) {
+      e.printStackTrace();
+    }
+    return obj;
+  }
+}
@@ -0,0 +1,221 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import okhttp3.Call;
+
+/*
+ * Keeps a small number of /session-token results ready so a flow can launch the FaceTec session without
+ * waiting for a round trip. Tokens are single use and expire, so each one is dropped once it is older than
+ * the configured TTL. Acquiring a token always triggers a background refill; a live fetch is only made when
+ * the pool is empty.
+ * Tokens are fetched from the endpoint EndpointRouter prefers at the time and remember it, since a token is only
+ * valid there. Tokens of an endpoint that has since gone unhealthy are skipped.
+ * Live fetches, which a flow is waiting on, can be hedged: when the fetch takes longer than the chosen percentile
+ * of recent /session-token calls, a second one goes out (see HedgedCall). Background refills never are.
+ */
+public class SessionTokenPool {
+  public static final int DEFAULT_CAPACITY = 2;
+  public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+  public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+  // At most one hedge per ten fetches, on average.
+  public static final double DEFAULT_HEDGE_BUDGET_RATIO = 0.1;
+  // Until enough calls have been timed, hedge after a fixed delay.
+  static final int HEDGE_MIN_SAMPLES = 20;
+  static final long HEDGE_DEFAULT_DELAY_MILLIS = 500;
+  static final long HEDGE_MIN_DELAY_MILLIS = 50;
+
+  public interface Callback {
+    // baseURL is the endpoint that issued the token; the whole flow has to talk to it.
+    void onToken(String sessionToken, String baseURL);
+    void onError(String msg);
+  }
+
+  private static final class Entry {
+    final String sessionToken;
+    final String baseURL;
+    final long fetchedAt;
+
+    Entry(String sessionToken, String baseURL, long fetchedAt) {
+      this.sessionToken = sessionToken;
+      this.baseURL = baseURL;
+      this.fetchedAt = fetchedAt;
+    }
+  }
+
+  private final ArrayDeque<Entry> tokens = new ArrayDeque<>();
+  private int capacity;
+  private long ttlMillis;
+  private int prefetchesInFlight = 0;
+  private volatile boolean hedging = false;
+  private volatile double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+  private final HedgedCall.Budget hedgeBudget = new HedgedCall.Budget(DEFAULT_HEDGE_BUDGET_RATIO);
+
+  public SessionTokenPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+  }
+
+  public SessionTokenPool(int capacity, long ttlMillis) {
+    this.capacity = capacity;
+    this.ttlMillis = ttlMillis;
+  }
+
+  public synchronized void configure(int capacity, long ttlMillis) {
+    this.capacity = capacity;
+    this.ttlMillis = ttlMillis;
+    dropExpired();
+    while(tokens.size() > capacity) {
+      tokens.pollFirst();
+    }
+  }
+
+  /*
+   * Enables hedged live fetches. percentile (0..1) of recent /session-token call times sets the hedge delay,
+   * budgetRatio caps hedges as a fraction of fetches.
+   */
+  public void configureHedging(boolean enabled, double percentile, double budgetRatio) {
+    hedgePercentile = percentile;
+    hedgeBudget.setRatio(budgetRatio);
+    hedging = enabled;
+  }
+
+  public synchronized int available() {
+    dropExpired();
+    return tokens.size();
+  }
+
+  /*
+   * Hands out a pooled token immediately when one is still valid, otherwise fetches one live.
+   */
+  public void acquire(final Callback callback) {
+    Entry entry;
+    synchronized(this) {
+      dropExpired();
+      entry = tokens.pollFirst();
+      while(entry != null && !EndpointRouter.isHealthy(entry.baseURL)) {
+        entry = tokens.pollFirst();
+      }
+    }
+
+    if(entry != null) {
+      callback.onToken(entry.sessionToken, entry.baseURL);
+    }
+    else {
+      fetch(callback, hedging);
+    }
+    prefetch();
+  }
+
+  /*
+   * Tops the pool up to its capacity in the background.
+   */
+  public void prefetch() {
+    int missing;
+    synchronized(this) {
+      dropExpired();
+      missing = capacity - tokens.size() - prefetchesInFlight;
+      if(missing <= 0) {
+        return;
+      }
+      prefetchesInFlight += missing;
+    }
+
+    for(int i = 0; i < missing; i++) {
+      fetch(new Callback() {
+        @Override
+        public void onToken(String sessionToken, String baseURL) {
+          synchronized(SessionTokenPool.this) {
+            prefetchesInFlight--;
+            if(tokens.size() < capacity) {
+              tokens.addLast(new Entry(sessionToken, baseURL, SystemClock.elapsedRealtime()));
+            }
+          }
+        }
+
+        @Override
+        public void onError(String msg) {
+          synchronized(SessionTokenPool.this) {
+            prefetchesInFlight--;
+          }
+          Log.d("FaceTecSDKSampleApp", "Session token prefetch failed: " + msg);
+        }
+      }, false);
+    }
+  }
+
+  public synchronized void clear() {
+    tokens.clear();
+  }
+
+  private void dropExpired() {
+    long now = SystemClock.elapsedRealtime();
+    while(!tokens.isEmpty() && now - tokens.peekFirst().fetchedAt >= ttlMillis) {
+      tokens.pollFirst();
+    }
+  }
+
+  private void fetch(final Callback callback, boolean hedged) {
+    HedgedCall.RequestFactory factory = new HedgedCall.RequestFactory() {
+      @Override
+      public okhttp3.Request create(String baseURL) {
+        return new okhttp3.Request.Builder()
+          .header("X-Device-Key", Config.DeviceKeyIdentifier)
+          .url(baseURL + "/session-token")
+          .get()
+          .build();
+      }
+    };
+
+    HedgedCall.enqueue(factory, EndpointRouter.select(), RetryPolicy.SESSION_TOKEN, hedged ? hedgeDelayMillis() : -1, hedgeBudget, new HedgedCall.Callback() {
+      @Override
+      public void onFailure(String baseURL, Call call, IOException e) {
+        e.printStackTrace();
+        Log.d("FaceTecSDKSampleApp", "Exception raised while attempting HTTPS call.");
+        // If this comes from HTTPS cancel call, pass that on as-is so callers can stay silent about it.
+        if(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED.equals(e.getMessage())) {
+          callback.onError(NetworkingHelpers.OK_HTTP_RESPONSE_CANCELED);
+        }
+        else {
+          callback.onError("Exception raised while attempting HTTPS call");
+        }
+      }
+
+      @Override
+      public void onResponse(String baseURL, Call call, okhttp3.Response response) throws IOException {
+        EndpointRouter.recordResponse(baseURL, response);
+        String responseString = response.body().string();
+        response.body().close();
+        try {
+          JSONObject responseJSON = new JSONObject(responseString);
+          if(responseJSON.has("sessionToken")) {
+            callback.onToken(responseJSON.getString("sessionToken"), baseURL);
+          }
+          else {
+            callback.onError("sessionToken invalid");
+          }
+        }
+        catch(JSONException e) {
+          e.printStackTrace();
+          Log.d("FaceTecSDKSampleApp", "Exception raised while attempting to parse JSON result.");
+          callback.onError("Exception raised while attempting to parse JSON result.");
+        }
+      }
+    });
+  }
+
+  // The configured percentile of recent /session-token call times, once there are enough of them.
+  private long hedgeDelayMillis() {
+    LatencyHistogram.Snapshot calls = LatencyRecorder.peek("/session-token", LatencyRecorder.Metric.CALL);
+    if(calls.count < HEDGE_MIN_SAMPLES) {
+      return HEDGE_DEFAULT_DELAY_MILLIS;
+    }
+    return Math.max(HEDGE_MIN_DELAY_MILLIS, (long) calls.percentileMillis(hedgePercentile));
+  }
+}
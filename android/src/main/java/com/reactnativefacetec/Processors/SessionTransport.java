@@ -0,0 +1,26 @@
+package com.reactnativefacetec.Processors;
+
+import java.io.IOException;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/*
+ * Moves a prepared session request to the backend and hands the raw response body back to SessionPipeline.
+ * OkHttpSessionTransport is the default; NetworkingHelpers.setSessionTransport swaps it, e.g. for a batching
+ * transport or an in-process stand-in that never touches the network.
+ */
+public interface SessionTransport {
+  Handle send(Request request, Callback callback);
+
+  interface Handle {
+    void cancel();
+  }
+
+  interface Callback {
+    // The receiver owns the body and closes it.
+    void onResponse(ResponseBody body);
+
+    void onFailure(IOException e, boolean canceled);
+  }
+}
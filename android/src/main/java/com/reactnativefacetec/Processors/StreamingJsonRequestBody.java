@@ -0,0 +1,166 @@
+package com.reactnativefacetec.Processors;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Utf8;
+
+/*
+ * Implementation of RequestBody that writes a flat JSON object straight into the request sink.
+ * The FaceScan / IDScan Strings handed over by the FaceTec SDK are written as-is, so the payload is never
+ * materialized a second time as a JSON String or as an encoded byte array.
+ * The body can be written more than once, which keeps it usable for retries.
+ */
+class StreamingJsonRequestBody extends RequestBody {
+  static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+  private static final int WRITE_STEP_CHARS = 16 * 1024;
+
+  private final LinkedHashMap<String, Object> fields = new LinkedHashMap<>();
+  private long contentLength = -1;
+
+  // Supported values are String, Number, Boolean and null.
+  StreamingJsonRequestBody put(String name, Object value) {
+    if(value != null && !(value instanceof String) && !(value instanceof Number) && !(value instanceof Boolean)) {
+      throw new IllegalArgumentException("Unsupported JSON value for " + name + ": " + value.getClass().getName());
+    }
+    fields.put(name, value);
+    contentLength = -1;
+    return this;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return JSON;
+  }
+
+  @Override
+  public long contentLength() {
+    // Computed without encoding anything so ProgressRequestBody can report progress against the exact size.
+    if(contentLength == -1) {
+      long length = 2;
+      boolean first = true;
+      for(Map.Entry<String, Object> field : fields.entrySet()) {
+        if(!first) {
+          length += 1;
+        }
+        first = false;
+        length += quotedLength(field.getKey()) + 1;
+        length += valueLength(field.getValue());
+      }
+      contentLength = length;
+    }
+    return contentLength;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    sink.writeByte('{');
+    boolean first = true;
+    for(Map.Entry<String, Object> field : fields.entrySet()) {
+      if(!first) {
+        sink.writeByte(',');
+      }
+      first = false;
+      writeQuoted(sink, field.getKey());
+      sink.writeByte(':');
+      writeValue(sink, field.getValue());
+    }
+    sink.writeByte('}');
+  }
+
+  private static long valueLength(Object value) {
+    if(value instanceof String) {
+      return quotedLength((String) value);
+    }
+    return literal(value).length();
+  }
+
+  private static void writeValue(BufferedSink sink, Object value) throws IOException {
+    if(value instanceof String) {
+      writeQuoted(sink, (String) value);
+    }
+    else {
+      sink.writeUtf8(literal(value));
+    }
+  }
+
+  private static String literal(Object value) {
+    if(value == null) {
+      return "null";
+    }
+    if(value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if(Double.isNaN(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("JSON does not allow non-finite numbers: " + d);
+      }
+      if(d == (long) d) {
+        return Long.toString((long) d);
+      }
+      return Double.toString(d);
+    }
+    return value.toString();
+  }
+
+  // Base64 payloads never need escaping, so they are written in a single run.
+  private static long quotedLength(String value) {
+    long length = 2;
+    int runStart = 0;
+    for(int i = 0; i < value.length(); i++) {
+      String escape = escapeFor(value.charAt(i));
+      if(escape != null) {
+        length += Utf8.size(value, runStart, i) + escape.length();
+        runStart = i + 1;
+      }
+    }
+    return length + Utf8.size(value, runStart, value.length());
+  }
+
+  private static void writeQuoted(BufferedSink sink, String value) throws IOException {
+    sink.writeByte('"');
+    int runStart = 0;
+    for(int i = 0; i < value.length(); i++) {
+      String escape = escapeFor(value.charAt(i));
+      if(escape != null) {
+        writeRun(sink, value, runStart, i);
+        sink.writeUtf8(escape);
+        runStart = i + 1;
+      }
+    }
+    writeRun(sink, value, runStart, value.length());
+    sink.writeByte('"');
+  }
+
+  // Encodes in steps so the sink can pass each step on before the next one is encoded, instead of buffering
+  // a whole multi-MB FaceScan at once.
+  private static void writeRun(BufferedSink sink, String value, int start, int end) throws IOException {
+    while(start < end) {
+      int stepEnd = Math.min(end, start + WRITE_STEP_CHARS);
+      if(stepEnd < end && Character.isHighSurrogate(value.charAt(stepEnd - 1))) {
+        stepEnd--;
+      }
+      sink.writeUtf8(value, start, stepEnd);
+      start = stepEnd;
+    }
+  }
+
+  private static String escapeFor(char c) {
+    switch(c) {
+      case '"': return "\\\"";
+      case '\\': return "\\\\";
+      case '\n': return "\\n";
+      case '\r': return "\\r";
+      case '\t': return "\\t";
+      case '\b': return "\\b";
+      case '\f': return "\\f";
+      default:
+        if(c < 0x20) {
+          return String.format("\\u%04x", (int) c);
+        }
+        return null;
+    }
+  }
+}
@@ -2,11 +2,9 @@ package com.reactnativefacetec.Processors;
 
 import android.content.Context;
 import android.graphics.Color;
-import android.graphics.Rect;
 
 import com.facetec.sdk.FaceTecCancelButtonCustomization;
 import com.facetec.sdk.FaceTecCustomization;
-import com.facetec.sdk.FaceTecSDK;
 import com.reactnativefacetec.R;
 
 public class ThemeHelpers {
@@ -15,22 +13,88 @@ public class ThemeHelpers {
     this.context = context;
   }
 
-  public void setAppTheme(String theme) {
-    Config.currentCustomization = getCustomizationForTheme(theme);
-    FaceTecCustomization currentLowLightCustomization = getLowLightCustomizationForTheme(theme);
+  /*
+   * The colors a theme is made of, as #RRGGBB / #AARRGGBB strings. Everything else (sizes, images, radii)
+   * is shared by all themes. Strings are only parsed when the theme is compiled. Immutable, so SAMPLE_BANK
+   * can be shared and a defined theme can't change while it compiles.
+   */
+  public static final class Palette {
+    public static final Palette SAMPLE_BANK = new Palette(
+      "#1797E3", // navy
+      "#FFFFFF", // white
+      "#3ad15d", // numio
+      "#414141",
+      "#6f6f6f",
+      "#acacac");
+
+    public final String primaryColor;
+    public final String backgroundColor;
+    public final String accentColor;
+    public final String buttonTextColor;
+    public final String textColor;
+    public final String lowLightTextColor;
+
+    public Palette(String primaryColor, String backgroundColor, String accentColor, String buttonTextColor,
+                   String textColor, String lowLightTextColor) {
+      this.primaryColor = primaryColor;
+      this.backgroundColor = backgroundColor;
+      this.accentColor = accentColor;
+      this.buttonTextColor = buttonTextColor;
+      this.textColor = textColor;
+      this.lowLightTextColor = lowLightTextColor;
+    }
+  }
+
+  // A Palette's colors, parsed once for both customizations of a theme.
+  static final class Colors {
+    final int primaryColor;
+    final int backgroundColor;
+    final int numio;
+    final int buttonText;
+    final int grayColor;
+    final int lowLightGrayColor;
+
+    Colors(Palette palette) {
+      primaryColor = Color.parseColor(palette.primaryColor);
+      backgroundColor = Color.parseColor(palette.backgroundColor);
+      numio = Color.parseColor(palette.accentColor);
+      buttonText = Color.parseColor(palette.buttonTextColor);
+      grayColor = Color.parseColor(palette.textColor);
+      lowLightGrayColor = Color.parseColor(palette.lowLightTextColor);
+    }
+  }
 
-    FaceTecSDK.setCustomization(Config.currentCustomization);
-    FaceTecSDK.setLowLightCustomization(currentLowLightCustomization);
+  /*
+   * Selects the theme and applies it right away, compiling it first if ThemeRegistry doesn't have it yet.
+   */
+  public void setAppTheme(String theme) {
+    if(!ThemeRegistry.setTheme(theme)) {
+      ThemeRegistry.define(theme, Palette.SAMPLE_BANK);
+      ThemeRegistry.setTheme(theme);
+    }
+    ThemeRegistry.applySelected();
   }
 
   public static FaceTecCustomization getCustomizationForTheme(String theme) {
+    return getCustomizationForTheme(Palette.SAMPLE_BANK);
+  }
+
+  public static FaceTecCustomization getCustomizationForTheme(Palette palette) {
+    return getCustomizationForTheme(new Colors(palette));
+  }
+
+  static FaceTecCustomization getCustomizationForTheme(Colors colors) {
     FaceTecCustomization currentCustomization = new FaceTecCustomization();
+    applyTheme(currentCustomization, colors);
+    return currentCustomization;
+  }
 
-    int primaryColor = Color.parseColor("#1797E3"); // navy
-    int backgroundColor = Color.parseColor("#FFFFFF"); // white
-    int numio = Color.parseColor("#3ad15d");
-    int buttonText = Color.parseColor("#414141");
-    int grayColor = Color.parseColor("#6f6f6f");
+  private static void applyTheme(FaceTecCustomization currentCustomization, Colors colors) {
+    int primaryColor = colors.primaryColor;
+    int backgroundColor = colors.backgroundColor;
+    int numio = colors.numio;
+    int buttonText = colors.buttonText;
+    int grayColor = colors.grayColor;
 
     int[] retryScreenSlideshowImages = new int[]{
       R.drawable.zoom_ideal_1,
@@ -185,18 +249,30 @@ public class ThemeHelpers {
     // Cancel Button Customization
     currentCustomization.getCancelButtonCustomization().customImage = R.drawable.cancel_navy;
     currentCustomization.getCancelButtonCustomization().setLocation(FaceTecCancelButtonCustomization.ButtonLocation.DISABLED);
-
-    return currentCustomization;
   }
 
   static FaceTecCustomization getLowLightCustomizationForTheme(String theme) {
-    FaceTecCustomization currentLowLightCustomization = getCustomizationForTheme(theme);
+    return getLowLightCustomizationForTheme(Palette.SAMPLE_BANK);
+  }
+
+  static FaceTecCustomization getLowLightCustomizationForTheme(Palette palette) {
+    return getLowLightCustomizationForTheme(new Colors(palette));
+  }
 
-    int primaryColor = Color.parseColor("#1797E3"); // navy
-    int backgroundColor = Color.parseColor("#FFFFFF"); // white
-    int numio = Color.parseColor("#3ad15d");
-    int buttonText = Color.parseColor("#414141");
-    int grayColor = Color.parseColor("#acacac");
+  /*
+   * The low light variant is the regular theme with the overrides below. FaceTecCustomization can't be copied,
+   * so the regular rules are applied to a fresh instance from the already parsed colors instead of compiling
+   * the whole theme a second time.
+   */
+  static FaceTecCustomization getLowLightCustomizationForTheme(Colors colors) {
+    FaceTecCustomization currentLowLightCustomization = new FaceTecCustomization();
+    applyTheme(currentLowLightCustomization, colors);
+
+    int primaryColor = colors.primaryColor;
+    int backgroundColor = colors.backgroundColor;
+    int numio = colors.numio;
+    int buttonText = colors.buttonText;
+    int grayColor = colors.lowLightGrayColor;
 
     int[] retryScreenSlideshowImages = new int[]{
       R.drawable.zoom_ideal_1,
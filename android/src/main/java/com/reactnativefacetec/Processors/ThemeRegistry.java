@@ -0,0 +1,114 @@
+package com.reactnativefacetec.Processors;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facetec.sdk.FaceTecCustomization;
+import com.facetec.sdk.FaceTecSDK;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Named themes, each compiled once into its regular and low light FaceTecCustomization on a background thread.
+ * Selecting a theme only records its name; the SDK gets the compiled pair when the next session launches, and
+ * only if it differs from what the SDK already has. Switching between defined themes never rebuilds them.
+ */
+public class ThemeRegistry {
+  public static final String DEFAULT_THEME = "Sample Bank";
+
+  private static final ExecutorService compiler = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec theme compiler");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private static final ConcurrentHashMap<String, Future<Compiled>> themes = new ConcurrentHashMap<>();
+  private static volatile String selected = DEFAULT_THEME;
+  private static Compiled applied = null;
+
+  private ThemeRegistry() {
+  }
+
+  /*
+   * Defines (or redefines) a theme and starts compiling it. A redefined theme that is selected reaches the SDK
+   * with the next session.
+   */
+  public static void define(String name, final ThemeHelpers.Palette palette) {
+    themes.put(name, compiler.submit(new Callable<Compiled>() {
+      @Override
+      public Compiled call() {
+        ThemeHelpers.Colors colors = new ThemeHelpers.Colors(palette);
+        return new Compiled(ThemeHelpers.getCustomizationForTheme(colors), ThemeHelpers.getLowLightCustomizationForTheme(colors));
+      }
+    }));
+  }
+
+  // Returns false, keeping the current selection, if no theme of that name was defined.
+  public static boolean setTheme(String name) {
+    if(!themes.containsKey(name)) {
+      Log.d("FaceTecSDKSampleApp", "Unknown theme: " + name);
+      return false;
+    }
+    selected = name;
+    return true;
+  }
+
+  public static String getTheme() {
+    return selected;
+  }
+
+  /*
+   * Hands the selected theme to the SDK unless it already has it. Called right before a session launches; by then
+   * the theme has normally long been compiled, otherwise this waits for it. The default theme is compiled here if
+   * nothing was defined. A theme that fails to compile (e.g. a bad color string) leaves the previous one in place.
+   */
+  public static synchronized void applySelected() {
+    Future<Compiled> future = themes.get(selected);
+    if(future == null) {
+      define(DEFAULT_THEME, ThemeHelpers.Palette.SAMPLE_BANK);
+      selected = DEFAULT_THEME;
+      future = themes.get(DEFAULT_THEME);
+    }
+
+    Compiled compiled;
+    try {
+      compiled = future.get();
+    }
+    catch(ExecutionException e) {
+      Log.d("FaceTecSDKSampleApp", "Unable to compile theme " + selected + ": " + e.getCause());
+      return;
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    if(compiled == applied) {
+      return;
+    }
+    Config.currentCustomization = compiled.customization;
+    FaceTecSDK.setCustomization(compiled.customization);
+    FaceTecSDK.setLowLightCustomization(compiled.lowLightCustomization);
+    applied = compiled;
+  }
+
+  private static class Compiled {
+    final FaceTecCustomization customization;
+    final FaceTecCustomization lowLightCustomization;
+
+    Compiled(FaceTecCustomization customization, FaceTecCustomization lowLightCustomization) {
+      this.customization = customization;
+      this.lowLightCustomization = lowLightCustomization;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.reactnativefacetec.Processors;
+
+import java.util.EnumMap;
+
+/*
+ * Smoothed upload throughput, kept per kind of network, since a rate measured on Wi-Fi says nothing about the
+ * 3G link the phone switched to since. Every upload through ProgressRequestBody that is big enough to get past
+ * the socket buffers adds a sample. A network class without samples answers with a conservative prior for its
+ * kind of link.
+ */
+public class ThroughputEstimator {
+  public enum NetworkClass {
+    UNKNOWN(100 * 1024),
+    CELLULAR_2G(8 * 1024),
+    CELLULAR_3G(48 * 1024),
+    CELLULAR_4G(400 * 1024),
+    CELLULAR_5G(1024 * 1024),
+    WIFI(1024 * 1024);
+
+    // Typical upload rates, not the link maxima, in bytes per second.
+    final double priorBytesPerSecond;
+
+    NetworkClass(double priorBytesPerSecond) {
+      this.priorBytesPerSecond = priorBytesPerSecond;
+    }
+  }
+
+  // Smaller uploads mostly measure how fast the kernel takes bytes into its send buffer.
+  static final long MIN_SAMPLE_BYTES = 64 * 1024;
+  private static final double SMOOTHING = 0.3;
+
+  private static final EnumMap<NetworkClass, Double> estimates = new EnumMap<>(NetworkClass.class);
+  private static volatile NetworkClass networkClass = NetworkClass.UNKNOWN;
+
+  private ThroughputEstimator() {
+  }
+
+  public static void setNetworkClass(NetworkClass current) {
+    networkClass = current != null ? current : NetworkClass.UNKNOWN;
+  }
+
+  public static NetworkClass getNetworkClass() {
+    return networkClass;
+  }
+
+  static synchronized void record(long bytes, long millis) {
+    if(bytes < MIN_SAMPLE_BYTES || millis <= 0) {
+      return;
+    }
+    double sample = bytes * 1000.0 / millis;
+    Double estimate = estimates.get(networkClass);
+    estimates.put(networkClass, estimate == null ? sample : estimate + SMOOTHING * (sample - estimate));
+  }
+
+  // The estimate for the current network class, or its prior until it has been measured.
+  public static synchronized double bytesPerSecond() {
+    Double estimate = estimates.get(networkClass);
+    return estimate != null ? estimate : networkClass.priorBytesPerSecond;
+  }
+
+  public static synchronized boolean isMeasured() {
+    return estimates.containsKey(networkClass);
+  }
+
+  public static synchronized void reset() {
+    estimates.clear();
+  }
+}
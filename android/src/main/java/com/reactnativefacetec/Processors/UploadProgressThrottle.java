@@ -0,0 +1,49 @@
+package com.reactnativefacetec.Processors;
+
+/*
+ * Decides which upload progress updates are worth delivering. An update goes through when the upload has moved
+ * by at least minDelta (as a fraction of the total) or when minInterval has passed since the last delivered one,
+ * provided progress actually changed. The first and the final (100%) updates are always delivered.
+ * Not thread-safe, one instance is used per written request body.
+ */
+class UploadProgressThrottle {
+  private final long minIntervalNanos;
+  private final float minDelta;
+  private long lastEmittedAt = 0;
+  private float lastFraction = -1;
+  private boolean completed = false;
+
+  UploadProgressThrottle(long minIntervalMillis, float minDelta) {
+    this.minIntervalNanos = minIntervalMillis * 1000000L;
+    this.minDelta = minDelta;
+  }
+
+  boolean shouldEmit(long bytesWritten, long totalBytes) {
+    if(completed) {
+      return false;
+    }
+    long now = System.nanoTime();
+    float fraction = totalBytes > 0 ? Math.min(1f, (float) bytesWritten / (float) totalBytes) : 0f;
+
+    boolean emit;
+    if(totalBytes > 0 && bytesWritten >= totalBytes) {
+      completed = true;
+      emit = true;
+    }
+    else if(lastFraction < 0) {
+      emit = true;
+    }
+    else if(fraction <= lastFraction && totalBytes > 0) {
+      emit = false;
+    }
+    else {
+      emit = fraction - lastFraction >= minDelta || now - lastEmittedAt >= minIntervalNanos;
+    }
+
+    if(emit) {
+      lastFraction = fraction;
+      lastEmittedAt = now;
+    }
+    return emit;
+  }
+}
@@ -0,0 +1,486 @@
+package com.reactnativefacetec.Processors;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+/*
+ * Disk-backed queue for uploads that could not reach the backend after a good FaceScan / IDScan was captured.
+ * Each entry is written once as a body file streamed straight from the request body, plus a small meta file
+ * with the URL and headers that marks the entry as complete. Entries are never rewritten; they are replayed
+ * in order when connectivity returns and deleted once the backend has answered them.
+ * Both files are encrypted with a Keystore key (see QueueCipher); below Android 6.0 nothing is persisted.
+ * Disk usage is capped and the oldest entries are evicted first; entries older than the max age are dropped.
+ */
+public class UploadQueue {
+  public static final long DEFAULT_MAX_BYTES = 50L * 1024 * 1024;
+  public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+  private static final String DIRECTORY_NAME = "facetec-upload-queue";
+  private static final String META_SUFFIX = ".meta";
+  private static final String BODY_SUFFIX = ".body";
+
+  public interface Listener {
+    void onQueueChanged(Status status);
+  }
+
+  public static final class Status {
+    public final boolean enabled;
+    public final int pending;
+    public final long bytes;
+    public final long oldestQueuedAt;
+    public final String lastError;
+
+    Status(boolean enabled, int pending, long bytes, long oldestQueuedAt, String lastError) {
+      this.enabled = enabled;
+      this.pending = pending;
+      this.bytes = bytes;
+      this.oldestQueuedAt = oldestQueuedAt;
+      this.lastError = lastError;
+    }
+  }
+
+  private static UploadQueue instance = null;
+
+  private final Context context;
+  private final File directory;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "FaceTec upload queue");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  private volatile boolean enabled = false;
+  private volatile long maxBytes = DEFAULT_MAX_BYTES;
+  private volatile long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+  private volatile String lastError = null;
+  private volatile Listener listener = null;
+  private long sequence = 0;
+  private BroadcastReceiver connectivityReceiver = null;
+
+  private UploadQueue(Context context) {
+    this.context = context.getApplicationContext();
+    this.directory = new File(this.context.getFilesDir(), DIRECTORY_NAME);
+  }
+
+  public static synchronized UploadQueue init(Context context) {
+    if(instance == null) {
+      instance = new UploadQueue(context);
+      instance.purge();
+    }
+    return instance;
+  }
+
+  // Null until the module has called init().
+  public static synchronized UploadQueue getInstance() {
+    return instance;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    if(enabled && connectivityReceiver == null) {
+      connectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+          if(isConnected()) {
+            flush();
+          }
+        }
+      };
+      context.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+    else if(!enabled && connectivityReceiver != null) {
+      context.unregisterReceiver(connectivityReceiver);
+      connectivityReceiver = null;
+    }
+    if(enabled) {
+      flush();
+    }
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setMaxAgeMillis(long maxAgeMillis) {
+    this.maxAgeMillis = maxAgeMillis;
+    purge();
+  }
+
+  // Drops expired and half-written entries, also while the queue is disabled, so none outlive the max age.
+  private void purge() {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        removeIncompleteEntries();
+        evictExpired();
+      }
+    });
+  }
+
+  /*
+   * Persists the request for a later replay. The body is written from its own RequestBody, so it is streamed to
+   * disk without being materialized in memory. Does nothing while the queue is disabled.
+   */
+  public void enqueue(final Request request, final RequestBody body) {
+    if(!enabled) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          write(request, body);
+          evictExpired();
+          evictOverflow();
+        }
+        catch(IOException | JSONException e) {
+          e.printStackTrace();
+          lastError = "Failed to persist upload: " + e.getMessage();
+        }
+        notifyListener();
+      }
+    });
+  }
+
+  /*
+   * Replays every queued upload in order. Stops at the first network failure and waits for connectivity.
+   */
+  public void flush() {
+    if(!enabled) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        replay();
+        notifyListener();
+      }
+    });
+  }
+
+  public Status getStatus() {
+    File[] entries = listEntries();
+    long bytes = 0;
+    for(File meta : entries) {
+      bytes += meta.length() + bodyFor(meta).length();
+    }
+    long oldest = entries.length == 0 ? 0 : entries[0].lastModified();
+    return new Status(enabled, entries.length, bytes, oldest, lastError);
+  }
+
+  private void write(Request request, RequestBody body) throws IOException, JSONException {
+    if(!QueueCipher.isAvailable()) {
+      throw new IOException("entries can only be stored encrypted, which needs Android 6.0");
+    }
+    if(!directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Cannot create " + directory);
+    }
+    String name = String.format(Locale.ROOT, "%013d-%06d", System.currentTimeMillis(), sequence++ % 1000000);
+    File bodyFile = new File(directory, name + BODY_SUFFIX);
+    File metaFile = new File(directory, name + META_SUFFIX);
+
+    BufferedSink bodySink = QueueCipher.encryptingSink(bodyFile);
+    try {
+      body.writeTo(bodySink);
+    }
+    finally {
+      bodySink.close();
+    }
+
+    JSONObject headers = new JSONObject();
+    Headers requestHeaders = request.headers();
+    for(int i = 0; i < requestHeaders.size(); i++) {
+      headers.put(requestHeaders.name(i), requestHeaders.value(i));
+    }
+    JSONObject meta = new JSONObject();
+    meta.put("url", request.url().toString());
+    meta.put("contentType", body.contentType() == null ? JSONObject.NULL : body.contentType().toString());
+    meta.put("headers", headers);
+
+    // The meta file is written last and renamed into place, so its presence marks a complete entry.
+    File tmpMeta = new File(directory, name + META_SUFFIX + ".tmp");
+    BufferedSink metaSink = QueueCipher.encryptingSink(tmpMeta);
+    try {
+      metaSink.writeUtf8(meta.toString());
+    }
+    finally {
+      metaSink.close();
+    }
+    if(!tmpMeta.renameTo(metaFile)) {
+      bodyFile.delete();
+      tmpMeta.delete();
+      throw new IOException("Cannot commit " + metaFile);
+    }
+  }
+
+  private void replay() {
+    removeIncompleteEntries();
+    evictExpired();
+    for(File meta : listEntries()) {
+      if(!isConnected()) {
+        return;
+      }
+      JSONObject json;
+      try {
+        json = new JSONObject(readDecrypted(meta).readUtf8());
+      }
+      catch(IOException | JSONException e) {
+        Log.d("FaceTecSDKSampleApp", "Upload queue dropped unreadable entry " + meta.getName() + ": " + e.getMessage());
+        lastError = "Dropped unreadable entry " + meta.getName();
+        remove(meta);
+        continue;
+      }
+      QueuedBody body = null;
+      try {
+        MediaType contentType = json.isNull("contentType") ? null : MediaType.parse(json.getString("contentType"));
+        body = new QueuedBody(contentType, bodyFor(meta));
+        Request.Builder builder = new Request.Builder()
+          .url(json.getString("url"))
+          .post(body);
+        JSONObject headers = json.getJSONObject("headers");
+        Iterator<String> names = headers.keys();
+        while(names.hasNext()) {
+          String headerName = names.next();
+          builder.header(headerName, headers.getString(headerName));
+        }
+
+        Response response = NetworkingHelpers.getApiClient().newCall(builder.build()).execute();
+        int code = response.code();
+        response.close();
+        if(RetryPolicy.isRetryableStatus(code)) {
+          lastError = "Replay deferred, backend answered HTTP " + code;
+          return;
+        }
+        if(!response.isSuccessful()) {
+          // The backend rejected the entry itself, replaying it again would not help.
+          lastError = "Replay dropped, backend answered HTTP " + code;
+        }
+        else {
+          lastError = null;
+        }
+        remove(meta);
+      }
+      catch(JSONException e) {
+        e.printStackTrace();
+        lastError = "Dropped unreadable entry " + meta.getName();
+        remove(meta);
+      }
+      catch(IOException e) {
+        if(body != null && body.unreadable) {
+          Log.d("FaceTecSDKSampleApp", "Upload queue dropped unreadable entry " + meta.getName() + ": " + e.getMessage());
+          lastError = "Dropped unreadable entry " + meta.getName();
+          remove(meta);
+          continue;
+        }
+        Log.d("FaceTecSDKSampleApp", "Upload queue replay failed: " + e.getMessage());
+        lastError = "Replay failed: " + e.getMessage();
+        return;
+      }
+    }
+  }
+
+  /*
+   * A queued body, decrypted from disk while it is sent instead of being loaded into memory first. A failure to
+   * read or decrypt the file is remembered, so a damaged entry is dropped instead of being taken for a network
+   * failure and retried forever.
+   */
+  private static final class QueuedBody extends RequestBody {
+    private final MediaType contentType;
+    private final File file;
+    volatile boolean unreadable = false;
+
+    QueuedBody(MediaType contentType, File file) {
+      this.contentType = contentType;
+      this.file = file;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+      return QueueCipher.plaintextLength(file);
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+      BufferedSource source;
+      try {
+        source = QueueCipher.decryptingSource(file);
+      }
+      catch(IOException e) {
+        unreadable = true;
+        throw e;
+      }
+      try {
+        Buffer buffer = new Buffer();
+        while(true) {
+          long read;
+          try {
+            read = source.read(buffer, 8192);
+          }
+          catch(IOException e) {
+            unreadable = true;
+            throw e;
+          }
+          if(read == -1) {
+            break;
+          }
+          sink.write(buffer, read);
+        }
+      }
+      finally {
+        source.close();
+      }
+    }
+  }
+
+  private Buffer readDecrypted(File file) throws IOException {
+    BufferedSource source = QueueCipher.decryptingSource(file);
+    try {
+      Buffer buffer = new Buffer();
+      source.readAll(buffer);
+      return buffer;
+    }
+    finally {
+      source.close();
+    }
+  }
+
+  // Entry names start with the time they were queued at.
+  private void evictExpired() {
+    long now = System.currentTimeMillis();
+    for(File meta : listEntries()) {
+      long queuedAt;
+      try {
+        queuedAt = Long.parseLong(meta.getName().substring(0, meta.getName().indexOf('-')));
+      }
+      catch(NumberFormatException | StringIndexOutOfBoundsException e) {
+        queuedAt = meta.lastModified();
+      }
+      if(now - queuedAt > maxAgeMillis) {
+        Log.d("FaceTecSDKSampleApp", "Upload queue entry expired, removing " + meta.getName());
+        remove(meta);
+      }
+    }
+  }
+
+  private void evictOverflow() {
+    File[] entries = listEntries();
+    long total = 0;
+    for(File meta : entries) {
+      total += meta.length() + bodyFor(meta).length();
+    }
+    for(int i = 0; i < entries.length && total > maxBytes; i++) {
+      total -= entries[i].length() + bodyFor(entries[i]).length();
+      Log.d("FaceTecSDKSampleApp", "Upload queue full, evicting " + entries[i].getName());
+      remove(entries[i]);
+    }
+  }
+
+  // Leftovers of a write that was interrupted, e.g. by the process being killed. Only called on the queue thread.
+  private void removeIncompleteEntries() {
+    File[] files = directory.listFiles();
+    if(files == null) {
+      return;
+    }
+    for(File file : files) {
+      String name = file.getName();
+      if(name.endsWith(BODY_SUFFIX)) {
+        String meta = name.substring(0, name.length() - BODY_SUFFIX.length()) + META_SUFFIX;
+        if(!new File(directory, meta).exists()) {
+          file.delete();
+        }
+      }
+      else if(!name.endsWith(META_SUFFIX)) {
+        file.delete();
+      }
+    }
+  }
+
+  // Complete entries only, oldest first.
+  private File[] listEntries() {
+    File[] entries = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().endsWith(META_SUFFIX);
+      }
+    });
+    if(entries == null) {
+      return new File[0];
+    }
+    Arrays.sort(entries, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return a.getName().compareTo(b.getName());
+      }
+    });
+    return entries;
+  }
+
+  private File bodyFor(File meta) {
+    String name = meta.getName();
+    return new File(directory, name.substring(0, name.length() - META_SUFFIX.length()) + BODY_SUFFIX);
+  }
+
+  private void remove(File meta) {
+    meta.delete();
+    bodyFor(meta).delete();
+  }
+
+  private boolean isConnected() {
+    ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    NetworkInfo networkInfo = connectivityManager == null ? null : connectivityManager.getActiveNetworkInfo();
+    return networkInfo != null && networkInfo.isConnected();
+  }
+
+  private void notifyListener() {
+    Listener current = listener;
+    if(current != null) {
+      current.onQueueChanged(getStatus());
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.reactnativefacetec.Processors;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Locale;
+
+/*
+ * Watches one session upload from its progress events and keeps the FaceTec UI in step with it:
+ *   - the upload message shows the remaining time, estimated from a smoothed throughput, or that the upload is
+ *     waiting for the network,
+ *   - progress goes to the SDK as it arrives, already paced by the SetUploadProgressThrottle settings; once the
+ *     body is sent and the server is processing it, every tick re-reports it as a heartbeat, so the SDK's 60
+ *     second no-progress cancel only fires for an upload that really stopped (the transport's read timeout
+ *     bounds the wait for the response),
+ *   - an upload that hasn't moved a byte for the stall timeout is aborted instead of waiting out the socket
+ *     timeouts and retries.
+ * Ticks run on the main thread; progress may arrive on any thread.
+ */
+class UploadSupervisor {
+  static final long TICK_MILLIS = 1000;
+  // Don't show an ETA before there is a rate to base it on.
+  static final long ETA_AFTER_MILLIS = 2000;
+  static final long STALL_WARNING_MILLIS = 5000;
+  static final long PROCESSING_MESSAGE_AFTER_MILLIS = 6000;
+  private static final double RATE_SMOOTHING = 0.5;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final SessionPipeline.SdkCallback sdk;
+  private final long stallTimeoutMillis;
+  private SessionTransport.Handle handle;
+  private long startedAt;
+  private long bytesWritten = 0;
+  private long totalBytes = 0;
+  private long lastMovedAt;
+  private long uploadedAt = 0;
+  // Bytes and time at the previous tick, for the rate.
+  private long tickBytes = 0;
+  private long tickAt;
+  private double bytesPerSecond = -1;
+  private String message = null;
+  private boolean stopped = false;
+  private boolean aborted = false;
+
+  private final Runnable tick = new Runnable() {
+    @Override
+    public void run() {
+      onTick();
+    }
+  };
+
+  // stallTimeoutMillis <= 0 never aborts.
+  UploadSupervisor(SessionPipeline.SdkCallback sdk, long stallTimeoutMillis) {
+    this.sdk = sdk;
+    this.stallTimeoutMillis = stallTimeoutMillis;
+  }
+
+  synchronized void start() {
+    startedAt = SystemClock.elapsedRealtime();
+    lastMovedAt = startedAt;
+    tickAt = startedAt;
+    handler.postDelayed(tick, TICK_MILLIS);
+  }
+
+  // The handle a stall abort cancels. Progress may already be flowing when it arrives.
+  synchronized void attach(SessionTransport.Handle handle) {
+    this.handle = handle;
+  }
+
+  // Called with the throttled progress of the upload.
+  void onProgress(long bytesWritten, long totalBytes) {
+    synchronized(this) {
+      long now = SystemClock.elapsedRealtime();
+      if(bytesWritten < this.bytesWritten) {
+        // A retry writes the body again from the start.
+        tickBytes = bytesWritten;
+        tickAt = now;
+        uploadedAt = 0;
+      }
+      if(bytesWritten != this.bytesWritten) {
+        lastMovedAt = now;
+      }
+      this.bytesWritten = bytesWritten;
+      this.totalBytes = totalBytes;
+      if(totalBytes > 0 && bytesWritten >= totalBytes && uploadedAt == 0) {
+        uploadedAt = now;
+      }
+    }
+    sdk.uploadProgress(fraction(bytesWritten, totalBytes));
+  }
+
+  void stop() {
+    synchronized(this) {
+      stopped = true;
+    }
+    handler.removeCallbacks(tick);
+  }
+
+  // Whether the upload was cancelled for stalling, rather than by its owner.
+  synchronized boolean wasAborted() {
+    return aborted;
+  }
+
+  private void onTick() {
+    String nextMessage;
+    float heartbeat = -1;
+    SessionTransport.Handle abort = null;
+    synchronized(this) {
+      if(stopped) {
+        return;
+      }
+      long now = SystemClock.elapsedRealtime();
+      boolean moved = bytesWritten > tickBytes;
+      if(now > tickAt) {
+        double sample = Math.max(0, bytesWritten - tickBytes) * 1000.0 / (now - tickAt);
+        bytesPerSecond = bytesPerSecond < 0 ? sample : bytesPerSecond + RATE_SMOOTHING * (sample - bytesPerSecond);
+      }
+      tickBytes = bytesWritten;
+      tickAt = now;
+
+      if(uploadedAt > 0) {
+        nextMessage = now - uploadedAt >= PROCESSING_MESSAGE_AFTER_MILLIS ? "Still Processing..." : null;
+        // Nothing moves while the server works on the body, the heartbeat keeps the SDK waiting for its answer.
+        heartbeat = fraction(bytesWritten, totalBytes);
+      }
+      else if(now - lastMovedAt >= STALL_WARNING_MILLIS) {
+        nextMessage = "Waiting for network...";
+        if(stallTimeoutMillis > 0 && now - lastMovedAt >= stallTimeoutMillis && handle != null) {
+          aborted = true;
+          stopped = true;
+          abort = handle;
+        }
+      }
+      else {
+        // A tick without progress only drags the rate down, the ETA waits for bytes to move again.
+        nextMessage = moved ? etaMessage(now) : null;
+      }
+      if(nextMessage != null && nextMessage.equals(message)) {
+        nextMessage = null;
+      }
+      else if(nextMessage != null) {
+        message = nextMessage;
+      }
+    }
+
+    if(abort != null) {
+      Log.d("FaceTecSDKSampleApp", "Upload stalled for " + stallTimeoutMillis + "ms, aborting");
+      abort.cancel();
+      return;
+    }
+    if(heartbeat >= 0) {
+      sdk.uploadProgress(heartbeat);
+    }
+    if(nextMessage != null) {
+      sdk.uploadMessageOverride(nextMessage);
+    }
+    handler.postDelayed(tick, TICK_MILLIS);
+  }
+
+  private String etaMessage(long now) {
+    if(now - startedAt < ETA_AFTER_MILLIS || bytesPerSecond <= 0 || totalBytes <= 0) {
+      return null;
+    }
+    long seconds = (long) Math.ceil((totalBytes - bytesWritten) / bytesPerSecond);
+    if(seconds < 3) {
+      return "Uploading...";
+    }
+    return String.format(Locale.ROOT, "Uploading...\n%s left", seconds < 60 ? seconds + "s" : "about " + (seconds + 30) / 60 + " min");
+  }
+
+  private static float fraction(long bytesWritten, long totalBytes) {
+    return totalBytes > 0 ? Math.min(1f, ((float) bytesWritten) / ((float) totalBytes)) : 0f;
+  }
+}
@@ -0,0 +1,128 @@
+package com.reactnativefacetec;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.reactnativefacetec.Processors.SessionResult;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+/*
+ * Turns a SessionResult into native bridge maps, so JS receives objects instead of JSON strings it has to parse
+ * (twice, for the ID result's embedded responseJSON). JSON documents are read token by token straight into
+ * WritableMap / WritableArray, without an intermediate JSONObject tree.
+ */
+class ResultMarshaller {
+  private ResultMarshaller() {
+  }
+
+  static WritableMap toWritableMap(SessionResult result) throws IOException {
+    if(result.isJson()) {
+      return readDocument(result.json());
+    }
+    WritableMap map = Arguments.createMap();
+    for(Map.Entry<String, Object> field : result.fields().entrySet()) {
+      Object value = field.getValue();
+      if(value instanceof SessionResult) {
+        map.putMap(field.getKey(), toWritableMap((SessionResult) value));
+      }
+      else if(value instanceof String) {
+        map.putString(field.getKey(), (String) value);
+      }
+      else if(value instanceof Boolean) {
+        map.putBoolean(field.getKey(), (Boolean) value);
+      }
+      else if(value instanceof Number) {
+        map.putDouble(field.getKey(), ((Number) value).doubleValue());
+      }
+      else {
+        map.putNull(field.getKey());
+      }
+    }
+    return map;
+  }
+
+  private static WritableMap readDocument(String json) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(json));
+    try {
+      return readObject(reader);
+    }
+    catch(IllegalStateException | NumberFormatException e) {
+      throw new IOException("Unable to convert result: " + e.getMessage());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static WritableMap readObject(JsonReader reader) throws IOException {
+    WritableMap map = Arguments.createMap();
+    reader.beginObject();
+    while(reader.hasNext()) {
+      String name = reader.nextName();
+      switch(reader.peek()) {
+        case BEGIN_OBJECT:
+          map.putMap(name, readObject(reader));
+          break;
+        case BEGIN_ARRAY:
+          map.putArray(name, readArray(reader));
+          break;
+        case STRING:
+          map.putString(name, reader.nextString());
+          break;
+        case NUMBER:
+          map.putDouble(name, reader.nextDouble());
+          break;
+        case BOOLEAN:
+          map.putBoolean(name, reader.nextBoolean());
+          break;
+        case NULL:
+          reader.nextNull();
+          map.putNull(name);
+          break;
+        default:
+          throw new IllegalStateException("Unexpected token " + reader.peek());
+      }
+    }
+    reader.endObject();
+    return map;
+  }
+
+  private static WritableArray readArray(JsonReader reader) throws IOException {
+    WritableArray array = Arguments.createArray();
+    reader.beginArray();
+    while(reader.hasNext()) {
+      JsonToken token = reader.peek();
+      switch(token) {
+        case BEGIN_OBJECT:
+          array.pushMap(readObject(reader));
+          break;
+        case BEGIN_ARRAY:
+          array.pushArray(readArray(reader));
+          break;
+        case STRING:
+          array.pushString(reader.nextString());
+          break;
+        case NUMBER:
+          array.pushDouble(reader.nextDouble());
+          break;
+        case BOOLEAN:
+          array.pushBoolean(reader.nextBoolean());
+          break;
+        case NULL:
+          reader.nextNull();
+          array.pushNull();
+          break;
+        default:
+          throw new IllegalStateException("Unexpected token " + token);
+      }
+    }
+    reader.endArray();
+    return array;
+  }
+}
@@ -0,0 +1,159 @@
+package com.reactnativefacetec;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableMap;
+import com.reactnativefacetec.Processors.FlowTimings;
+import com.reactnativefacetec.Processors.Processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * The flows currently in progress, keyed by a generated session id. Each session carries its own JS callbacks,
+ * session token, processor and timings, so starting a flow never touches the state of one that is still
+ * fetching its token or uploading. A session is removed the moment its FlowTimings completes, which every
+ * terminal path of a flow does exactly once.
+ *
+ * A session can also be started under a key (flow plus external id). While it runs, starting the same key again
+ * joins it instead: the new caller shares its token fetch and SDK session and gets the same outcome.
+ */
+class SessionRegistry {
+  private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+  private final HashMap<String, Session> byKey = new HashMap<>();
+
+  // key may be null for a session nothing should join.
+  synchronized Session start(String flow, final String key, Callback onSuccess, Callback onFail) {
+    final Session session = new Session(UUID.randomUUID().toString(), new FlowTimings(flow), onSuccess, onFail);
+    sessions.put(session.id, session);
+    if(key != null) {
+      byKey.put(key, session);
+    }
+    session.timings.setCompletionListener(new FlowTimings.CompletionListener() {
+      @Override
+      public void onComplete(FlowTimings.Record record) {
+        sessions.remove(session.id);
+        synchronized(SessionRegistry.this) {
+          if(byKey.get(key) == session) {
+            byKey.remove(key);
+          }
+        }
+      }
+    });
+    return session;
+  }
+
+  /*
+   * Adds the callbacks to the running session started under key and returns it, or returns null when there is
+   * none (or it has been cancelled). A session stops being joinable as soon as it completes, before its result is
+   * delivered, so a joined caller never misses the outcome.
+   */
+  synchronized Session join(String key, Callback onSuccess, Callback onFail) {
+    Session session = byKey.get(key);
+    if(session == null || session.isCanceled()) {
+      return null;
+    }
+    session.addCaller(onSuccess, onFail);
+    return session;
+  }
+
+  Session get(String sessionId) {
+    return sessionId == null ? null : sessions.get(sessionId);
+  }
+
+  List<Session> active() {
+    return new ArrayList<>(sessions.values());
+  }
+
+  static class Session {
+    final String id;
+    final FlowTimings timings;
+    // One success / failure pair per caller that started or joined the session.
+    private final List<Callback[]> callers = new ArrayList<>();
+    // A React Native callback pair may only be used once; whichever result comes first wins.
+    private final AtomicBoolean delivered = new AtomicBoolean(false);
+    volatile String sessionToken;
+    // Endpoint that issued the token, the flow is pinned to it.
+    volatile String baseURL;
+    private Processor processor;
+    private boolean canceled = false;
+
+    private Session(String id, FlowTimings timings, Callback onSuccess, Callback onFail) {
+      this.id = id;
+      this.timings = timings;
+      callers.add(new Callback[]{onSuccess, onFail});
+    }
+
+    String flow() {
+      return timings.flow;
+    }
+
+    synchronized boolean isCanceled() {
+      return canceled;
+    }
+
+    // A processor attached after cancel() is cancelled right away.
+    void attach(Processor processor) {
+      boolean cancelNow;
+      synchronized(this) {
+        this.processor = processor;
+        cancelNow = canceled;
+      }
+      if(cancelNow) {
+        processor.cancel();
+      }
+    }
+
+    /*
+     * Stops the flow's upload, or keeps it from starting if the session token is still on its way.
+     */
+    void cancel() {
+      Processor current;
+      synchronized(this) {
+        canceled = true;
+        current = processor;
+      }
+      if(current != null) {
+        current.cancel();
+      }
+    }
+
+    private synchronized void addCaller(Callback onSuccess, Callback onFail) {
+      callers.add(new Callback[]{onSuccess, onFail});
+    }
+
+    boolean succeed(Object... args) {
+      return deliver(0, args);
+    }
+
+    boolean fail(Object... args) {
+      return deliver(1, args);
+    }
+
+    private boolean deliver(int which, Object... args) {
+      if(!delivered.compareAndSet(false, true)) {
+        return false;
+      }
+      List<Callback[]> targets;
+      synchronized(this) {
+        targets = new ArrayList<>(callers);
+      }
+      for(int i = 0; i < targets.size(); i++) {
+        // A map or array can only cross the bridge once, every caller but the last gets a copy.
+        targets.get(i)[which].invoke(i == targets.size() - 1 ? args : copyOf(args));
+      }
+      return true;
+    }
+
+    private static Object[] copyOf(Object[] args) {
+      Object[] copy = new Object[args.length];
+      for(int i = 0; i < args.length; i++) {
+        copy[i] = args[i] instanceof WritableMap ? ((WritableMap) args[i]).copy() : args[i];
+      }
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.reactnativefacetec.Processors;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+import okio.Sink;
+import okio.Timeout;
+
+/*
+ * Deterministic stand-ins for what the FaceTec SDK and server hand the processors. Sizes follow what devices
+ * produce: a FaceScan of a few MB, audit trail images in the 100 KB range and ID images of around 1 MB.
+ */
+final class Fixtures {
+  static final int AUDIT_TRAIL_IMAGE_BYTES = 150 * 1024;
+  static final int LOW_QUALITY_AUDIT_TRAIL_IMAGE_BYTES = 40 * 1024;
+  static final int ID_IMAGE_BYTES = 1024 * 1024;
+
+  private Fixtures() {
+  }
+
+  // Base64 of random bytes, so the result does not compress and is valid input for the multipart encoding.
+  static String base64(int decodedBytes, long seed) {
+    byte[] bytes = new byte[decodedBytes];
+    new Random(seed).nextBytes(bytes);
+    return Base64.getEncoder().encodeToString(bytes);
+  }
+
+  // A FaceTec Server style response carrying a scanResultBlob and a "data" object with a few nested fields.
+  static String response(int scanResultBlobBytes, boolean withIdStatus) {
+    StringBuilder json = new StringBuilder(scanResultBlobBytes * 2);
+    json.append("{\"success\":true,\"wasProcessed\":true,\"error\":false");
+    json.append(",\"scanResultBlob\":\"").append(base64(scanResultBlobBytes, 7)).append('"');
+    if(withIdStatus) {
+      json.append(",\"fullIDStatusEnumInt\":0,\"digitalIDSpoofStatusEnumInt\":0");
+    }
+    json.append(",\"data\":{\"externalDatabaseRefID\":\"bench-user\",\"matchLevel\":6,\"livenessProven\":true");
+    json.append(",\"documentData\":{\"scannedValues\":{\"groups\":[");
+    for(int i = 0; i < 8; i++) {
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append("{\"groupKey\":\"group").append(i).append("\",\"fields\":[");
+      for(int j = 0; j < 6; j++) {
+        if(j > 0) {
+          json.append(',');
+        }
+        json.append("{\"fieldKey\":\"field").append(j).append("\",\"value\":\"Value \\\"").append(i * 6 + j).append("\\\"\",\"confidence\":0.9").append(j).append('}');
+      }
+      json.append("]}");
+    }
+    json.append("]}}}");
+    json.append(",\"serverInfo\":{\"version\":\"9.3.0\",\"mode\":\"Development Only\",\"notice\":\"bench\"}");
+    json.append(",\"callData\":{\"tid\":\"0f1d6c6c-bench\",\"path\":\"/match-3d-3d\",\"date\":\"Jan 1, 2021\",\"epochSecond\":1609459200}");
+    json.append(",\"additionalSessionData\":{\"isAdditionalDataPartiallyIncomplete\":false,\"platform\":\"android\"}}");
+    return json.toString();
+  }
+
+  /*
+   * Consumes whatever is written, so request bodies can be serialized without the bytes piling up in memory.
+   */
+  static final class DiscardingSink implements Sink {
+    long bytesWritten = 0;
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      bytesWritten += byteCount;
+      source.skip(byteCount);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.reactnativefacetec.Processors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of one LatencyHistogram.record() call, alone and with OkHttp-like contention. The GC profiler should
+ * report no allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Benchmark
+  public void record() {
+    histogram.recordNanos(ThreadLocalRandom.current().nextLong(1000000L, 5000000000L));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void recordContended() {
+    histogram.recordNanos(ThreadLocalRandom.current().nextLong(1000000L, 5000000000L));
+  }
+}
@@ -0,0 +1,114 @@
+package com.reactnativefacetec.Processors;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/*
+ * From the Strings a FaceTecSessionResult / FaceTecIDScanResult hands over to bytes on the wire.
+ * jsonObject is the path the processors took before SessionPayload: a JSONObject tree, its toString() and the
+ * encoded byte array behind RequestBody.create. The other two are the SessionPayload encodings used today.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadBenchmark {
+  @Param({"1", "3", "5"})
+  int faceScanMegabytes;
+
+  @Param({"faceScan", "idScan"})
+  String flow;
+
+  private String scan;
+  private String firstImage;
+  private String secondImage;
+
+  @Setup
+  public void setUp() {
+    scan = Fixtures.base64(faceScanMegabytes * 1024 * 1024, 1);
+    if(flow.equals("faceScan")) {
+      firstImage = Fixtures.base64(Fixtures.AUDIT_TRAIL_IMAGE_BYTES, 2);
+      secondImage = Fixtures.base64(Fixtures.LOW_QUALITY_AUDIT_TRAIL_IMAGE_BYTES, 3);
+    }
+    else {
+      firstImage = Fixtures.base64(Fixtures.ID_IMAGE_BYTES, 4);
+      secondImage = Fixtures.base64(Fixtures.ID_IMAGE_BYTES, 5);
+    }
+  }
+
+  @Benchmark
+  public long jsonObject() throws Exception {
+    JSONObject parameters = new JSONObject();
+    if(flow.equals("faceScan")) {
+      parameters.put("faceScan", scan);
+      parameters.put("auditTrailImage", firstImage);
+      parameters.put("lowQualityAuditTrailImage", secondImage);
+      parameters.put("externalDatabaseRefID", "bench-user");
+    }
+    else {
+      parameters.put("externalDatabaseRefID", "bench-user");
+      parameters.put("idScan", scan);
+      parameters.put("minMatchLevel", 3);
+      parameters.put("idScanFrontImage", firstImage);
+      parameters.put("idScanBackImage", secondImage);
+    }
+    return write(RequestBody.create(StreamingJsonRequestBody.JSON, parameters.toString()));
+  }
+
+  @Benchmark
+  public long streamingJson() throws IOException {
+    return write(payload().toRequestBody(NetworkingHelpers.PayloadEncoding.JSON));
+  }
+
+  @Benchmark
+  public long multipart() throws IOException {
+    return write(payload().toRequestBody(NetworkingHelpers.PayloadEncoding.MULTIPART));
+  }
+
+  private SessionPayload payload() {
+    SessionPayload parameters = new SessionPayload();
+    if(flow.equals("faceScan")) {
+      parameters.putBlob("faceScan", scan);
+      parameters.putBlob("auditTrailImage", firstImage);
+      parameters.putBlob("lowQualityAuditTrailImage", secondImage);
+      parameters.put("externalDatabaseRefID", "bench-user");
+    }
+    else {
+      parameters.put("externalDatabaseRefID", "bench-user");
+      parameters.putBlob("idScan", scan);
+      parameters.put("minMatchLevel", 3);
+      parameters.putBlob("idScanFrontImage", firstImage);
+      parameters.putBlob("idScanBackImage", secondImage);
+    }
+    return parameters;
+  }
+
+  // contentLength() is part of the measured work, OkHttp asks for it before writing.
+  static long write(RequestBody body) throws IOException {
+    long contentLength = body.contentLength();
+    Fixtures.DiscardingSink discard = new Fixtures.DiscardingSink();
+    BufferedSink sink = Okio.buffer(discard);
+    body.writeTo(sink);
+    sink.flush();
+    return contentLength + discard.bytesWritten;
+  }
+}
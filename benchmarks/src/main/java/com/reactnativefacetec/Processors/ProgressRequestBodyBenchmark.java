@@ -0,0 +1,80 @@
+package com.reactnativefacetec.Processors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.RequestBody;
+
+/*
+ * What wrapping an upload in ProgressRequestBody costs over writing the same body directly, with and without
+ * the JS progress observer registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressRequestBodyBenchmark {
+  @Param({"3"})
+  int faceScanMegabytes;
+
+  @Param({"false", "true"})
+  boolean observer;
+
+  private SessionPayload payload;
+  private long progressCallbacks = 0;
+
+  @Setup
+  public void setUp() {
+    payload = new SessionPayload();
+    payload.putBlob("faceScan", Fixtures.base64(faceScanMegabytes * 1024 * 1024, 1));
+    payload.putBlob("auditTrailImage", Fixtures.base64(Fixtures.AUDIT_TRAIL_IMAGE_BYTES, 2));
+    payload.putBlob("lowQualityAuditTrailImage", Fixtures.base64(Fixtures.LOW_QUALITY_AUDIT_TRAIL_IMAGE_BYTES, 3));
+    payload.put("externalDatabaseRefID", "bench-user");
+
+    if(observer) {
+      NetworkingHelpers.setUploadProgressObserver(new NetworkingHelpers.UploadProgressObserver() {
+        @Override
+        public void onUploadProgress(long bytesWritten, long totalBytes) {
+          progressCallbacks++;
+        }
+      }, 250);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    NetworkingHelpers.setUploadProgressObserver(null, 250);
+  }
+
+  @Benchmark
+  public long plain() throws IOException {
+    return PayloadBenchmark.write(payload.toRequestBody(NetworkingHelpers.PayloadEncoding.JSON));
+  }
+
+  @Benchmark
+  public long withProgress() throws IOException {
+    RequestBody body = new ProgressRequestBody(payload.toRequestBody(NetworkingHelpers.PayloadEncoding.JSON),
+      new ProgressRequestBody.Listener() {
+        @Override
+        public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
+          progressCallbacks++;
+        }
+      });
+    return PayloadBenchmark.write(body) + progressCallbacks;
+  }
+}
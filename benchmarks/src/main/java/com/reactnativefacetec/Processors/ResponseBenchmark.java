@@ -0,0 +1,66 @@
+package com.reactnativefacetec.Processors;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/*
+ * Reading a FaceTec Server response. jsonObject is the path the processors took before SessionResponseDecoder:
+ * the body as a String, then a JSONObject tree. streaming / streamingWithDocument are the decoder without and
+ * with the full document copy that Authenticate and the ID scan ask for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBenchmark {
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+  @Param({"16", "256"})
+  int scanResultBlobKilobytes;
+
+  private byte[] response;
+
+  @Setup
+  public void setUp() {
+    response = Fixtures.response(scanResultBlobKilobytes * 1024, true).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public int jsonObject() throws Exception {
+    JSONObject responseJSON = new JSONObject(ResponseBody.create(JSON, response).string());
+    boolean wasProcessed = responseJSON.getBoolean("wasProcessed");
+    String scanResultBlob = responseJSON.getString("scanResultBlob");
+    String data = responseJSON.getJSONObject("data").toString();
+    return (wasProcessed ? 1 : 0) + scanResultBlob.length() + data.length();
+  }
+
+  @Benchmark
+  public int streaming() throws Exception {
+    SessionResponse decoded = SessionResponseDecoder.decode(ResponseBody.create(JSON, response), false);
+    return (decoded.wasProcessed() ? 1 : 0) + decoded.scanResultBlob().length() + decoded.dataJson().length();
+  }
+
+  @Benchmark
+  public int streamingWithDocument() throws Exception {
+    SessionResponse decoded = SessionResponseDecoder.decode(ResponseBody.create(JSON, response), true);
+    return (decoded.wasProcessed() ? 1 : 0) + decoded.scanResultBlob().length() + decoded.documentJson().length();
+  }
+}
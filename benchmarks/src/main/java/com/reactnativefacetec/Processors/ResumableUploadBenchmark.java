@@ -0,0 +1,140 @@
+package com.reactnativefacetec.Processors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/*
+ * An IDScan sized enrollment upload to the loopback ResumableUploadServer, one-shot versus in resumable chunks,
+ * with and without a connection reset at dropAtPercent of the body (IDScan uploads themselves are sent once and
+ * never chunked). A one-shot upload that gets reset starts over from zero, a chunked one resumes from the
+ * server's offset. Besides the time, each invocation returns the body bytes the server had to read, so the
+ * resent bytes show in the results too.
+ * Loopback has no latency, so the chunked numbers are the protocol's overhead floor, not what a phone sees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResumableUploadBenchmark {
+  private static final String PATH = "/enrollment-3d";
+
+  @Param({"3"})
+  int idScanMegabytes;
+
+  @Param({"256"})
+  int chunkKilobytes;
+
+  @Param({"-1", "90"})
+  int dropAtPercent;
+
+  private ResumableUploadServer server;
+  private SessionPayload payload;
+  private long length;
+
+  @Setup
+  public void setUp() throws IOException {
+    server = new ResumableUploadServer();
+    payload = new SessionPayload();
+    payload.put("externalDatabaseRefID", "bench-user");
+    payload.putBlob("idScan", Fixtures.base64(idScanMegabytes * 1024 * 1024, 1));
+    payload.putBlob("idScanFrontImage", Fixtures.base64(Fixtures.ID_IMAGE_BYTES, 4));
+    payload.put("minMatchLevel", 3);
+    length = payload.toRequestBody(NetworkingHelpers.PayloadEncoding.JSON).contentLength();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Benchmark
+  public long oneShot() throws IOException {
+    long before = arm();
+    Request request = request();
+    while(true) {
+      try {
+        Response response = NetworkingHelpers.getApiClient().newCall(request).execute();
+        response.body().bytes();
+        response.close();
+        return server.bytesReceived() - before;
+      }
+      catch(IOException e) {
+        // Reset mid-upload, the whole body goes again.
+      }
+    }
+  }
+
+  @Benchmark
+  public long chunked() throws Exception {
+    long before = arm();
+    final CountDownLatch done = new CountDownLatch(1);
+    final IOException[] failure = {null};
+    ResumableUpload.start(server.baseURL(), PATH, request(), chunkKilobytes * 1024,
+      new ProgressRequestBody.Listener() {
+        @Override
+        public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
+        }
+      },
+      new SessionTransport.Callback() {
+        @Override
+        public void onResponse(ResponseBody body) {
+          try {
+            body.bytes();
+          }
+          catch(IOException e) {
+            failure[0] = e;
+          }
+          body.close();
+          done.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e, boolean canceled) {
+          failure[0] = e;
+          done.countDown();
+        }
+      });
+    done.await();
+    if(failure[0] != null) {
+      throw failure[0];
+    }
+    return server.bytesReceived() - before;
+  }
+
+  // Every invocation is a fresh upload as far as the server is concerned.
+  private long arm() {
+    server.clear();
+    server.dropAt(dropAtPercent < 0 ? -1 : length * dropAtPercent / 100);
+    return server.bytesReceived();
+  }
+
+  private Request request() {
+    RequestBody body = payload.toRequestBody(NetworkingHelpers.PayloadEncoding.JSON);
+    return new Request.Builder()
+      .url(server.baseURL() + PATH)
+      .header("X-Device-Key", "bench-device")
+      .post(body)
+      .build();
+  }
+}
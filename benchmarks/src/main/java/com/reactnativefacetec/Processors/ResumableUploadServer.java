@@ -0,0 +1,308 @@
+package com.reactnativefacetec.Processors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/*
+ * A loopback stand-in for the server side of the ResumableUpload protocol (see there), plus the one-shot target
+ * endpoints it forwards to. Uploads are keyed by the digest of their body, chunks are checked against their
+ * Chunk-Digest and complete checks the assembled body against the upload's digest before answering with a
+ * FaceTec Server style response.
+ * dropAt() arms a connection reset: the next upload whose body reaches that byte (one-shot or chunked) has its
+ * connection closed mid-request, once. expireAt(), duplicateChunkAt() and corruptAt() arm the other failures a
+ * chunked upload has to recover from, also once each.
+ */
+final class ResumableUploadServer {
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final Map<String, Upload> uploads = new HashMap<>();
+  private final byte[] response = Fixtures.response(8 * 1024, true).getBytes(StandardCharsets.UTF_8);
+  private final AtomicLong bytesReceived = new AtomicLong();
+  private final ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Integer, AtomicInteger> answers = new ConcurrentHashMap<>();
+  private volatile long dropAtByte = -1;
+  private volatile boolean expireOnDrop = false;
+  private volatile long duplicateAtByte = -1;
+  private volatile long corruptAtByte = -1;
+
+  private static final class Upload {
+    final String digest;
+    final long length;
+    final Buffer body = new Buffer();
+
+    Upload(String digest, long length) {
+      this.digest = digest;
+      this.length = length;
+    }
+  }
+
+  ResumableUploadServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          route(exchange);
+        }
+        finally {
+          exchange.close();
+        }
+      }
+    });
+    server.start();
+  }
+
+  String baseURL() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  // Body bytes read across all requests, resent ones included.
+  long bytesReceived() {
+    return bytesReceived.get();
+  }
+
+  // Requests received with that method, e.g. "HEAD" for the resyncs after a failure.
+  int requests(String method) {
+    AtomicInteger count = requests.get(method);
+    return count == null ? 0 : count.get();
+  }
+
+  // Responses sent with that status.
+  int answered(int code) {
+    AtomicInteger count = answers.get(code);
+    return count == null ? 0 : count.get();
+  }
+
+  // The bytes an upload has received so far, null for an unknown one. An upload's id is its digest.
+  synchronized ByteString body(String id) {
+    Upload upload = uploads.get(id);
+    if(upload == null) {
+      return null;
+    }
+    synchronized(upload) {
+      return upload.body.snapshot();
+    }
+  }
+
+  void dropAt(long byteOffset) {
+    expireOnDrop = false;
+    dropAtByte = byteOffset;
+  }
+
+  // Like dropAt(), but the server also forgets every upload, as if they had expired while the client was away.
+  void expireAt(long byteOffset) {
+    expireOnDrop = true;
+    dropAtByte = byteOffset;
+  }
+
+  /*
+   * The chunk sent at byteOffset finds a copy of itself already stored, as when an earlier attempt got through
+   * but its answer was lost, and is answered 409 with the offset past it.
+   */
+  void duplicateChunkAt(long byteOffset) {
+    duplicateAtByte = byteOffset;
+  }
+
+  // The chunk holding that byte has it flipped on the way, so it fails its Chunk-Digest.
+  void corruptAt(long byteOffset) {
+    corruptAtByte = byteOffset;
+  }
+
+  synchronized void clear() {
+    uploads.clear();
+  }
+
+  void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void route(HttpExchange exchange) throws IOException {
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath();
+    count(requests, method);
+    if(!path.startsWith(ResumableUpload.PATH)) {
+      // A one-shot upload to the target endpoint itself.
+      if(readBody(exchange, 0) == null) {
+        return;
+      }
+      respond(exchange, 200, response);
+      return;
+    }
+
+    String[] segments = path.substring(ResumableUpload.PATH.length()).split("/");
+    String id = segments.length > 1 ? segments[1] : null;
+    if(id == null && method.equals("POST")) {
+      create(exchange);
+    }
+    else if(id != null && segments.length > 2 && segments[2].equals("complete") && method.equals("POST")) {
+      complete(exchange, id);
+    }
+    else if(id != null && method.equals("PATCH")) {
+      append(exchange, id);
+    }
+    else if(id != null && method.equals("HEAD")) {
+      Upload upload = find(id);
+      if(upload == null) {
+        respond(exchange, 404, null);
+        return;
+      }
+      exchange.getResponseHeaders().set(ResumableUpload.OFFSET_HEADER, Long.toString(currentOffset(upload)));
+      respond(exchange, 200, null);
+    }
+    else {
+      respond(exchange, 405, null);
+    }
+  }
+
+  private void create(HttpExchange exchange) throws IOException {
+    readBody(exchange, 0);
+    String digest = stripAlgorithm(exchange.getRequestHeaders().getFirst(ResumableUpload.DIGEST_HEADER));
+    long length = Long.parseLong(exchange.getRequestHeaders().getFirst(ResumableUpload.LENGTH_HEADER));
+    Upload upload;
+    synchronized(this) {
+      upload = uploads.get(digest);
+      if(upload == null) {
+        upload = new Upload(digest, length);
+        uploads.put(digest, upload);
+      }
+    }
+    exchange.getResponseHeaders().set(ResumableUpload.ID_HEADER, upload.digest);
+    exchange.getResponseHeaders().set(ResumableUpload.OFFSET_HEADER, Long.toString(currentOffset(upload)));
+    respond(exchange, 201, null);
+  }
+
+  private void append(HttpExchange exchange, String id) throws IOException {
+    Upload upload = find(id);
+    if(upload == null) {
+      respond(exchange, 404, null);
+      return;
+    }
+    long offset = Long.parseLong(exchange.getRequestHeaders().getFirst(ResumableUpload.OFFSET_HEADER));
+    byte[] chunk = readBody(exchange, offset);
+    if(chunk == null) {
+      return;
+    }
+    long corrupt = corruptAtByte;
+    if(corrupt >= offset && corrupt < offset + chunk.length) {
+      corruptAtByte = -1;
+      chunk[(int) (corrupt - offset)] ^= 1;
+    }
+    synchronized(upload) {
+      if(offset == duplicateAtByte && offset == upload.body.size()) {
+        duplicateAtByte = -1;
+        upload.body.write(chunk);
+      }
+      if(offset != upload.body.size()) {
+        exchange.getResponseHeaders().set(ResumableUpload.OFFSET_HEADER, Long.toString(upload.body.size()));
+        respond(exchange, 409, null);
+        return;
+      }
+      String digest = stripAlgorithm(exchange.getRequestHeaders().getFirst(ResumableUpload.CHUNK_DIGEST_HEADER));
+      if(!ByteString.of(chunk).sha256().hex().equals(digest)) {
+        respond(exchange, 422, null);
+        return;
+      }
+      upload.body.write(chunk);
+      exchange.getResponseHeaders().set(ResumableUpload.OFFSET_HEADER, Long.toString(upload.body.size()));
+    }
+    respond(exchange, 204, null);
+  }
+
+  private void complete(HttpExchange exchange, String id) throws IOException {
+    readBody(exchange, 0);
+    Upload upload = find(id);
+    if(upload == null) {
+      respond(exchange, 404, null);
+      return;
+    }
+    synchronized(upload) {
+      if(upload.body.size() != upload.length || !upload.body.sha256().hex().equals(upload.digest)) {
+        respond(exchange, 400, null);
+        return;
+      }
+    }
+    respond(exchange, 200, response);
+  }
+
+  /*
+   * Reads the request body, whose first byte sits at offset within its upload. Returns null after closing the
+   * connection when an armed drop falls inside it.
+   */
+  private byte[] readBody(HttpExchange exchange, long offset) throws IOException {
+    InputStream in = exchange.getRequestBody();
+    Buffer body = new Buffer();
+    byte[] step = new byte[16 * 1024];
+    for(int read; (read = in.read(step)) != -1; ) {
+      body.write(step, 0, read);
+      bytesReceived.addAndGet(read);
+      long drop = dropAtByte;
+      if(drop >= 0 && offset + body.size() >= drop) {
+        dropAtByte = -1;
+        if(expireOnDrop) {
+          clear();
+        }
+        // Closing the exchange without an answer resets the client's connection mid-request.
+        exchange.close();
+        return null;
+      }
+    }
+    return body.readByteArray();
+  }
+
+  private synchronized Upload find(String id) {
+    return uploads.get(id);
+  }
+
+  private static long currentOffset(Upload upload) {
+    synchronized(upload) {
+      return upload.body.size();
+    }
+  }
+
+  private static String stripAlgorithm(String digest) {
+    return digest == null ? "" : digest.substring(digest.indexOf('=') + 1);
+  }
+
+  private static <K> void count(ConcurrentHashMap<K, AtomicInteger> counts, K key) {
+    AtomicInteger count = counts.get(key);
+    if(count == null) {
+      AtomicInteger fresh = new AtomicInteger();
+      count = counts.putIfAbsent(key, fresh);
+      if(count == null) {
+        count = fresh;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  private void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+    count(answers, code);
+    if(body == null) {
+      exchange.sendResponseHeaders(code, -1);
+      return;
+    }
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, body.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(body);
+  }
+}
@@ -0,0 +1,5 @@
+package android.content;
+
+// JVM stand-in, only needed so Config compiles.
+public abstract class Context {
+}
@@ -0,0 +1,12 @@
+package android.os;
+
+// JVM stand-in, reports a current API level so no legacy TLS setup kicks in.
+public class Build {
+  public static class VERSION {
+    public static final int SDK_INT = 30;
+  }
+
+  public static class VERSION_CODES {
+    public static final int LOLLIPOP = 21;
+  }
+}
@@ -0,0 +1,78 @@
+package android.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+// JVM stand-in for the Android class of the same name, delegating to Gson, whose writer it was derived from.
+public final class JsonWriter implements Closeable, Flushable {
+  private final com.google.gson.stream.JsonWriter delegate;
+
+  public JsonWriter(Writer out) {
+    delegate = new com.google.gson.stream.JsonWriter(out);
+  }
+
+  public JsonWriter beginArray() throws IOException {
+    delegate.beginArray();
+    return this;
+  }
+
+  public JsonWriter endArray() throws IOException {
+    delegate.endArray();
+    return this;
+  }
+
+  public JsonWriter beginObject() throws IOException {
+    delegate.beginObject();
+    return this;
+  }
+
+  public JsonWriter endObject() throws IOException {
+    delegate.endObject();
+    return this;
+  }
+
+  public JsonWriter name(String name) throws IOException {
+    delegate.name(name);
+    return this;
+  }
+
+  public JsonWriter value(String value) throws IOException {
+    delegate.value(value);
+    return this;
+  }
+
+  public JsonWriter nullValue() throws IOException {
+    delegate.nullValue();
+    return this;
+  }
+
+  public JsonWriter value(boolean value) throws IOException {
+    delegate.value(value);
+    return this;
+  }
+
+  public JsonWriter value(double value) throws IOException {
+    delegate.value(value);
+    return this;
+  }
+
+  public JsonWriter value(long value) throws IOException {
+    delegate.value(value);
+    return this;
+  }
+
+  public JsonWriter value(Number value) throws IOException {
+    delegate.value(value);
+    return this;
+  }
+
+  public void flush() throws IOException {
+    delegate.flush();
+  }
+
+  public void close() throws IOException {
+    delegate.close();
+  }
+}
@@ -0,0 +1,9 @@
+package androidx.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+// JVM stand-in for the AndroidX annotation of the same name.
+@Retention(RetentionPolicy.CLASS)
+public @interface Nullable {
+}
@@ -0,0 +1,5 @@
+package com.facetec.sdk;
+
+// JVM stand-in, only needed so Config compiles.
+public class FaceTecCustomization {
+}
@@ -0,0 +1,21 @@
+package com.facetec.sdk;
+
+import android.content.Context;
+
+// JVM stand-in, only needed so Config compiles. Nothing in the benchmarks initializes the SDK.
+public final class FaceTecSDK {
+  private FaceTecSDK() {
+  }
+
+  public interface InitializeCallback {
+    void onCompletion(boolean successful);
+  }
+
+  public static void initializeInDevelopmentMode(Context context, String deviceKeyIdentifier, String publicFaceScanEncryptionKey, InitializeCallback callback) {
+    throw new UnsupportedOperationException("The FaceTec SDK is not available on the JVM");
+  }
+
+  public static String createFaceTecAPIUserAgentString(String sessionId) {
+    return "facetec|sdk|jvm|" + sessionId;
+  }
+}
@@ -0,0 +1,155 @@
+package com.reactnativefacetec.Processors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.ByteString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * ResumableUpload against the loopback ResumableUploadServer: the body the server assembles, and the way back
+ * from each failure the protocol knows about.
+ */
+public class ResumableUploadTest {
+  // Retryable, so the upload gets its full RetryPolicy.
+  private static final String PATH = "/enrollment-3d";
+  private static final int CHUNK_BYTES = 16 * 1024;
+  private static final int CHUNKS = 6;
+
+  private ResumableUploadServer server;
+  private byte[] body;
+  private String id;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new ResumableUploadServer();
+    // Not a whole number of chunks, so the last one is short.
+    body = new byte[CHUNKS * CHUNK_BYTES - 100];
+    new Random(1).nextBytes(body);
+    id = ByteString.of(body).sha256().hex();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Test
+  public void assemblesTheBodyInChunks() throws Exception {
+    Outcome outcome = upload();
+
+    assertNull(outcome.failure);
+    assertTrue(outcome.response.length() > 0);
+    assertEquals(ByteString.of(body), server.body(id));
+    assertEquals(CHUNKS, server.requests("PATCH"));
+    assertEquals(0, server.requests("HEAD"));
+    assertEquals(body.length, server.bytesReceived());
+  }
+
+  @Test
+  public void resumesFromTheServerOffsetAfterADrop() throws Exception {
+    server.dropAt(2 * CHUNK_BYTES + 10);
+
+    Outcome outcome = upload();
+
+    assertNull(outcome.failure);
+    assertEquals(ByteString.of(body), server.body(id));
+    assertEquals(1, server.requests("HEAD"));
+    // Only the chunk that was in flight went twice.
+    assertTrue(server.bytesReceived() - body.length <= CHUNK_BYTES);
+  }
+
+  @Test
+  public void carriesOnFromTheServerOffsetAfterAConflict() throws Exception {
+    server.duplicateChunkAt(3 * CHUNK_BYTES);
+
+    Outcome outcome = upload();
+
+    assertNull(outcome.failure);
+    assertEquals(ByteString.of(body), server.body(id));
+    assertEquals(1, server.answered(409));
+    // A conflict that moves the offset forward is no failure, so there is nothing to resync.
+    assertEquals(0, server.requests("HEAD"));
+  }
+
+  @Test
+  public void startsOverWhenTheUploadExpired() throws Exception {
+    server.expireAt(2 * CHUNK_BYTES + 10);
+
+    Outcome outcome = upload();
+
+    assertNull(outcome.failure);
+    assertEquals(ByteString.of(body), server.body(id));
+    assertEquals(1, server.answered(404));
+    // Created twice, completed once.
+    assertEquals(3, server.requests("POST"));
+    assertTrue(server.bytesReceived() >= body.length + 2 * CHUNK_BYTES);
+  }
+
+  @Test
+  public void endsOnAChunkThatFailsItsDigest() throws Exception {
+    server.corruptAt(CHUNK_BYTES + 5);
+
+    Outcome outcome = upload();
+
+    // A rejection is the server's answer, handed on like any other final response, and never completes.
+    assertNull(outcome.failure);
+    assertEquals(1, server.answered(422));
+    assertEquals(ByteString.of(body, 0, CHUNK_BYTES), server.body(id));
+    assertEquals(1, server.requests("POST"));
+  }
+
+  private Outcome upload() throws InterruptedException {
+    Request request = new Request.Builder()
+      .url(server.baseURL() + PATH)
+      .header("X-Device-Key", "test-device")
+      .post(RequestBody.create(MediaType.parse("application/octet-stream"), body))
+      .build();
+    final Outcome outcome = new Outcome();
+    ResumableUpload.start(server.baseURL(), PATH, request, CHUNK_BYTES,
+      new ProgressRequestBody.Listener() {
+        @Override
+        public void onUploadProgressChanged(long bytesWritten, long totalBytes) {
+        }
+      },
+      new SessionTransport.Callback() {
+        @Override
+        public void onResponse(ResponseBody responseBody) {
+          try {
+            outcome.response = responseBody.string();
+          }
+          catch(IOException e) {
+            outcome.failure = e;
+          }
+          outcome.done.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e, boolean canceled) {
+          outcome.failure = e;
+          outcome.done.countDown();
+        }
+      });
+    assertTrue("upload did not finish", outcome.done.await(30, TimeUnit.SECONDS));
+    return outcome;
+  }
+
+  private static final class Outcome {
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile String response;
+    volatile IOException failure;
+  }
+}
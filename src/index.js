@@ -6,11 +6,18 @@ const { Facetec } = NativeModules;
 //   onFail?: (any) => void,
 // };
 
+// The SDK starts initializing as soon as the module loads; init() reports that shared init (or starts one
+// after a failure). Flows wait for it by themselves.
 export function init(onSuccess, onFail) {
   Facetec.Init(onSuccess, onFail);
 
 }
 
+// 'not_started' | 'initializing' | 'ready' | 'failed', synchronously.
+export function getInitState() {
+  return Facetec.GetInitState();
+}
+
 export function authenticateUser(id, onSuccess, onFail) {
   Facetec.AuthenticateUser(id, onSuccess, onFail);
 }
@@ -27,4 +34,167 @@ export function CheckId(id, onSuccess, onFail) {
   Facetec.CheckId(id, onSuccess, onFail);
 }
 
-export default { init, enroll, authenticateUser, livenessCheck, CheckId };
+// 'string' (default): success results arrive as JSON strings, 'map': as objects, no JSON.parse needed.
+export function setResultFormat(format) {
+  Facetec.SetResultFormat(format);
+}
+
+// 'json' (default) or 'multipart'
+export function setPayloadEncoding(encoding) {
+  Facetec.SetPayloadEncoding(encoding);
+}
+
+// Upload audit trail images after the FaceScan has been answered instead of with it.
+export function setDeferredAuditTrail(enabled) {
+  Facetec.SetDeferredAuditTrail(enabled);
+}
+
+// Number of session tokens kept ready ahead of a flow, and how long each stays usable.
+export function configureSessionTokenPool(size, ttlSeconds) {
+  Facetec.ConfigureSessionTokenPool(size, ttlSeconds);
+}
+
+// Regional backends, most preferred first. Each flow is routed to the fastest healthy one (by measured RTT)
+// and stays on it, since session tokens are only valid where they were issued.
+export function setEndpoints(baseURLs) {
+  Facetec.SetEndpoints(baseURLs);
+}
+
+// [{ baseURL, rttMillis, healthy, selected }]
+export function getEndpoints(callback) {
+  Facetec.GetEndpoints(callback);
+}
+
+// Send a second /session-token request when the first is slower than the given percentile (e.g. 0.95)
+// of recent ones; budgetRatio (e.g. 0.1) caps hedges as a fraction of all token requests.
+export function setSessionTokenHedging(enabled, percentile, budgetRatio) {
+  Facetec.SetSessionTokenHedging(enabled, percentile, budgetRatio);
+}
+
+export function setConnectionPoolConfig(maxIdleConnections, keepAliveSeconds) {
+  Facetec.SetConnectionPoolConfig(maxIdleConnections, keepAliveSeconds);
+}
+
+// Calls made, connections opened vs. reused and the handshake time reuse saved.
+export function getConnectionStats(callback) {
+  Facetec.GetConnectionStats(callback);
+}
+
+// Drop audit trail images on slow links so a FaceScan upload takes at most budgetSeconds.
+export function setAdaptivePayload(enabled, budgetSeconds) {
+  Facetec.SetAdaptivePayload(enabled, budgetSeconds);
+}
+
+// Calls back with { networkClass, bytesPerSecond, measured }.
+export function getThroughputEstimate(callback) {
+  Facetec.GetThroughputEstimate(callback);
+}
+
+// Progress reaches the FaceTec UI at most every intervalMillis, or sooner after a minDelta (0..1) step.
+export function setUploadProgressThrottle(intervalMillis, minDelta) {
+  Facetec.SetUploadProgressThrottle(intervalMillis, minDelta);
+}
+
+// Abort an upload that hasn't moved for timeoutSeconds (20 by default, 0 never aborts).
+export function setUploadStallTimeout(timeoutSeconds) {
+  Facetec.SetUploadStallTimeout(timeoutSeconds);
+}
+
+// Upload scans of at least thresholdKilobytes in resumable chunks of chunkKilobytes.
+export function setResumableUploads(enabled, thresholdKilobytes, chunkKilobytes) {
+  Facetec.SetResumableUploads(enabled, thresholdKilobytes, chunkKilobytes);
+}
+
+// Emits throttled 'FacetecUploadProgress' device events while a scan uploads.
+export function setUploadProgressEvents(enabled, intervalMillis) {
+  Facetec.SetUploadProgressEvents(enabled, intervalMillis);
+}
+
+// Persist enrollment / ID uploads that fail for lack of network and replay them later.
+// Queue changes are also emitted as 'FacetecUploadQueueStatus' device events.
+// Entries are stored encrypted (Android 6.0+) and dropped after maxAgeHours.
+export function setUploadQueueEnabled(enabled, maxAgeHours = 24) {
+  Facetec.SetUploadQueueEnabled(enabled, maxAgeHours);
+}
+
+export function getUploadQueueStatus(callback) {
+  Facetec.GetUploadQueueStatus(callback);
+}
+
+export function flushUploadQueue() {
+  Facetec.FlushUploadQueue();
+}
+
+// Return CheckId images as cached file:// URIs ({ uri, bytes, mimeType }) instead of base64 strings.
+export function setImageFileCache(enabled, maxMegabytes) {
+  Facetec.SetImageFileCache(enabled, maxMegabytes);
+}
+
+export function clearImageFileCache() {
+  Facetec.ClearImageFileCache();
+}
+
+// Rolling per-stage latency aggregates for each flow (enroll, authenticate, liveness, checkId).
+export function getMetrics(callback) {
+  Facetec.GetMetrics(callback);
+}
+
+// Per-endpoint upload / server / call latency percentiles; reset starts a new interval.
+export function getLatencyHistograms(reset, callback) {
+  Facetec.GetLatencyHistograms(reset, callback);
+}
+
+// Flows in progress as [{ sessionId, flow }]; each start is also emitted as a 'FacetecSessionStarted' event.
+export function getActiveSessions(callback) {
+  Facetec.GetActiveSessions(callback);
+}
+
+// Stops a flow's upload by the sessionId from its 'FacetecSessionStarted' event; its onFail gets 'Canceled'.
+export function cancel(sessionId) {
+  Facetec.Cancel(sessionId);
+}
+
+// Themes are compiled once in the background; switching between defined themes doesn't rebuild them.
+// colors: { primaryColor, backgroundColor, accentColor, buttonTextColor, textColor, lowLightTextColor }
+export function defineTheme(name, colors) {
+  Facetec.DefineTheme(name, colors);
+}
+
+export function setTheme(name) {
+  Facetec.SetTheme(name);
+}
+
+export default {
+  init,
+  getInitState,
+  enroll,
+  authenticateUser,
+  livenessCheck,
+  CheckId,
+  setResultFormat,
+  setPayloadEncoding,
+  setDeferredAuditTrail,
+  configureSessionTokenPool,
+  setSessionTokenHedging,
+  setEndpoints,
+  getEndpoints,
+  setConnectionPoolConfig,
+  getConnectionStats,
+  setAdaptivePayload,
+  getThroughputEstimate,
+  setUploadProgressThrottle,
+  setUploadProgressEvents,
+  setUploadStallTimeout,
+  setResumableUploads,
+  setUploadQueueEnabled,
+  getUploadQueueStatus,
+  flushUploadQueue,
+  setImageFileCache,
+  clearImageFileCache,
+  getMetrics,
+  getLatencyHistograms,
+  getActiveSessions,
+  cancel,
+  defineTheme,
+  setTheme,
+};